@@ -0,0 +1,160 @@
+package spinyq.spinytextiles.client.model;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.lwjgl.system.MemoryStack;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.mojang.blaze3d.matrix.MatrixStack;
+import com.mojang.blaze3d.vertex.IVertexBuilder;
+
+import net.minecraft.client.renderer.Vector3f;
+import net.minecraft.client.renderer.Vector4f;
+import net.minecraft.client.renderer.model.BakedQuad;
+import net.minecraft.client.renderer.vertex.DefaultVertexFormats;
+import net.minecraft.util.Direction;
+
+/**
+ * Renders 10k cuboids into a vertex builder that only records what it is given,
+ * so the cost of the vertex builder itself is left out. Compares compiled meshes
+ * against the original renderQuad, which copied each vertex through a MemoryStack
+ * buffer and allocated a Vector4f per vertex.
+ * Run with "-prof gc" to see the allocations of each path.
+ * @author SpinyQ
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompiledMeshBenchmark {
+
+	private static final int CUBOIDS = 10000;
+	private static final int LIGHT = 0xF000F0, OVERLAY = 0xA0000;
+
+	private List<BakedQuad> quads;
+	private CompiledMesh mesh;
+	private final MatrixStack stack = new MatrixStack();
+
+	@Setup
+	public void setup() {
+		// A unit cube, with one quad per side
+		quads = new ArrayList<>();
+		for (Direction side : Direction.values()) {
+			quads.add(createQuad(side));
+		}
+		mesh = new CompiledMesh(quads);
+	}
+
+	private static BakedQuad createQuad(Direction side) {
+		int[] data = new int[32];
+		// Pick two axes along the face, and place the face on the side of the cube
+		Vector3f normal = side.toVector3f();
+		for (int v = 0; v < 4; v++) {
+			float a = (v == 1 || v == 2) ? 1f : 0f, b = (v >= 2) ? 1f : 0f;
+			float x, y, z;
+			switch (side.getAxis()) {
+			case X:
+				x = Math.max(normal.getX(), 0f);
+				y = a;
+				z = b;
+				break;
+			case Y:
+				x = a;
+				y = Math.max(normal.getY(), 0f);
+				z = b;
+				break;
+			default:
+				x = a;
+				y = b;
+				z = Math.max(normal.getZ(), 0f);
+				break;
+			}
+			int offset = v * 8;
+			data[offset] = Float.floatToRawIntBits(x);
+			data[offset + 1] = Float.floatToRawIntBits(y);
+			data[offset + 2] = Float.floatToRawIntBits(z);
+			data[offset + 3] = -1;
+			data[offset + 4] = Float.floatToRawIntBits(a);
+			data[offset + 5] = Float.floatToRawIntBits(b);
+		}
+		return new BakedQuad(data, -1, side, null, true);
+	}
+
+	/**
+	 * A copy of the original renderQuad, kept here as the baseline.
+	 */
+	private static void renderQuad(IVertexBuilder buffer, BakedQuad quad, MatrixStack.Entry entry, float red,
+			float green, float blue, float alpha, int combinedLightIn, int combinedOverlayIn) {
+		int[] aint = quad.getVertexData();
+		Vector3f vector3f = quad.getFace().toVector3f();
+		vector3f.transform(entry.getNormal());
+		int numVertices = aint.length / 8;
+
+		try (MemoryStack memorystack = MemoryStack.stackPush()) {
+			ByteBuffer bytebuffer = memorystack.malloc(DefaultVertexFormats.BLOCK.getSize());
+			IntBuffer intbuffer = bytebuffer.asIntBuffer();
+
+			for (int i = 0; i < numVertices; ++i) {
+				((Buffer) intbuffer).clear();
+				intbuffer.put(aint, i * 8, 8);
+				float f = bytebuffer.getFloat(0);
+				float f1 = bytebuffer.getFloat(4);
+				float f2 = bytebuffer.getFloat(8);
+
+				int l = buffer.applyBakedLighting(combinedLightIn, bytebuffer);
+				float f9 = bytebuffer.getFloat(16);
+				float f10 = bytebuffer.getFloat(20);
+				Vector4f vector4f = new Vector4f(f, f1, f2, 1.0F);
+				vector4f.transform(entry.getMatrix());
+				buffer.applyBakedNormals(vector3f, bytebuffer, entry.getNormal());
+				buffer.addVertex(vector4f.getX(), vector4f.getY(), vector4f.getZ(), red, green, blue, alpha, f9,
+						f10, combinedOverlayIn, l, vector3f.getX(), vector3f.getY(), vector3f.getZ());
+			}
+		}
+	}
+
+	@Benchmark
+	public double original() {
+		RecordingVertexBuilder buffer = new RecordingVertexBuilder();
+		for (int i = 0; i < CUBOIDS; i++) {
+			stack.push();
+			stack.translate(i & 127, 0.0, i >> 7);
+			MatrixStack.Entry entry = stack.getLast();
+			for (BakedQuad quad : quads) {
+				renderQuad(buffer, quad, entry, 1.0f, 0.5f, 0.25f, 1.0f, LIGHT, OVERLAY);
+			}
+			stack.pop();
+		}
+		return buffer.getResult();
+	}
+
+	@Benchmark
+	public double compiled() {
+		RecordingVertexBuilder buffer = new RecordingVertexBuilder();
+		for (int i = 0; i < CUBOIDS; i++) {
+			stack.push();
+			stack.translate(i & 127, 0.0, i >> 7);
+			mesh.render(buffer, stack, 1.0f, 0.5f, 0.25f, 1.0f, LIGHT, OVERLAY);
+			stack.pop();
+		}
+		return buffer.getResult();
+	}
+
+}
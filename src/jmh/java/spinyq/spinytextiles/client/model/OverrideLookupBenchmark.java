@@ -0,0 +1,141 @@
+package spinyq.spinytextiles.client.model;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import net.minecraft.nbt.CompoundNBT;
+import net.minecraft.util.ResourceLocation;
+
+/**
+ * Measures how long it takes FabricItemModel's override handler to find the
+ * submodel of a stack. Compares the original path, which parsed the pattern name
+ * out of the NBT, looked it up in the registry and then looked up the model in a
+ * HashMap, against the snapshot cache and ID-indexed arrays used now.
+ * The fabric pattern registry can't be created outside of the game, so this uses
+ * stand-in patterns, a HashMap in place of the registry, and plain objects in
+ * place of baked models. The new path hashes nothing but the identity of the NBT
+ * compound, and parses nothing once a stack's snapshot is cached.
+ * @author SpinyQ
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OverrideLookupBenchmark {
+
+	// A power of two, so the index can wrap with a mask
+	private static final int STACKS = 1024;
+	private static final String PATTERN_TAG = "Pattern", DATA_TAG = "Data";
+
+	private static final class Pattern {
+
+		private final ResourceLocation name;
+		private final int id;
+
+		private Pattern(ResourceLocation name, int id) {
+			this.name = name;
+			this.id = id;
+		}
+
+	}
+
+	/**
+	 * Stands in for FabricSnapshot, which only keeps the pattern here.
+	 */
+	private static final class Snapshot {
+
+		private final Pattern pattern;
+		private final int patternId;
+
+		private Snapshot(Pattern pattern) {
+			this.pattern = pattern;
+			this.patternId = pattern.id;
+		}
+
+	}
+
+	@Param({ "16", "256" })
+	public int patternCount;
+
+	private final CompoundNBT[] stacks = new CompoundNBT[STACKS];
+	private final Cache<CompoundNBT, Snapshot> snapshots = CacheBuilder.newBuilder().weakKeys().build();
+	private Map<ResourceLocation, Pattern> registry;
+	private Pattern[] patternsById;
+	private Map<Pattern, Object> modelsByPattern;
+	private Pattern[] subModelPatterns;
+	private Object[] modelsById;
+	private int index;
+
+	@Setup
+	public void setup() {
+		registry = new HashMap<>();
+		patternsById = new Pattern[patternCount];
+		modelsByPattern = new HashMap<>();
+		subModelPatterns = new Pattern[patternCount];
+		modelsById = new Object[patternCount];
+		for (int id = 0; id < patternCount; id++) {
+			Pattern pattern = new Pattern(new ResourceLocation("spinytextiles", "pattern_" + id), id);
+			Object model = new Object();
+			registry.put(pattern.name, pattern);
+			patternsById[id] = pattern;
+			modelsByPattern.put(pattern, model);
+			subModelPatterns[id] = pattern;
+			modelsById[id] = model;
+		}
+		for (int i = 0; i < STACKS; i++) {
+			// Each stack has both layouts, so both paths read the same stacks
+			Pattern pattern = patternsById[i % patternCount];
+			CompoundNBT nbt = new CompoundNBT();
+			nbt.putString(PATTERN_TAG, pattern.name.toString());
+			nbt.putIntArray(DATA_TAG, new int[] { pattern.id });
+			stacks[i] = nbt;
+		}
+	}
+
+	private CompoundNBT next() {
+		index = (index + 1) & (STACKS - 1);
+		return stacks[index];
+	}
+
+	@Benchmark
+	public Object original() {
+		CompoundNBT nbt = next();
+		Pattern pattern = registry.get(new ResourceLocation(nbt.getString(PATTERN_TAG)));
+		return modelsByPattern.get(pattern);
+	}
+
+	@Benchmark
+	public Object indexed() {
+		CompoundNBT nbt = next();
+		// The same steps as FabricSnapshot.of and FabricItemModel.getSubModel
+		Snapshot snapshot = snapshots.getIfPresent(nbt);
+		if (snapshot == null) {
+			snapshot = new Snapshot(patternsById[nbt.getIntArray(DATA_TAG)[0]]);
+			snapshots.put(nbt, snapshot);
+		}
+		int id = snapshot.patternId;
+		if (id < 0 || id >= subModelPatterns.length || subModelPatterns[id] != snapshot.pattern)
+			return null;
+		return modelsById[id];
+	}
+
+}
@@ -0,0 +1,67 @@
+package spinyq.spinytextiles.client.model;
+
+import com.mojang.blaze3d.vertex.IVertexBuilder;
+
+/**
+ * A vertex builder for benchmarks, which only records what it is given, so the
+ * cost of a real vertex builder is left out.
+ * It keeps a running sum of everything written to it, so the writes can't be
+ * optimized away.
+ * @author SpinyQ
+ *
+ */
+public class RecordingVertexBuilder implements IVertexBuilder {
+
+	private double sum;
+	private int vertices;
+
+	@Override
+	public IVertexBuilder pos(double x, double y, double z) {
+		sum += x + y + z;
+		return this;
+	}
+
+	@Override
+	public IVertexBuilder color(int red, int green, int blue, int alpha) {
+		sum += red + green + blue + alpha;
+		return this;
+	}
+
+	@Override
+	public IVertexBuilder tex(float u, float v) {
+		sum += u + v;
+		return this;
+	}
+
+	@Override
+	public IVertexBuilder overlay(int u, int v) {
+		sum += u + v;
+		return this;
+	}
+
+	@Override
+	public IVertexBuilder lightmap(int u, int v) {
+		sum += u + v;
+		return this;
+	}
+
+	@Override
+	public IVertexBuilder normal(float x, float y, float z) {
+		sum += x + y + z;
+		return this;
+	}
+
+	@Override
+	public void endVertex() {
+		vertices++;
+	}
+
+	/**
+	 * Returns a value that depends on everything written, for returning from a
+	 * benchmark.
+	 */
+	public double getResult() {
+		return sum + vertices;
+	}
+
+}
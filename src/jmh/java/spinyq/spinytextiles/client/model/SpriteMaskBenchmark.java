@@ -0,0 +1,222 @@
+package spinyq.spinytextiles.client.model;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import net.minecraft.util.Direction;
+
+/**
+ * Measures the pixel work of meshing a template item: finding the sides of a sprite
+ * cut out by a template, then merging the template into strips. Compares sprite
+ * masks against the original per-pixel lookups, for 16, 64 and 256 pixel sprites.
+ * Building quads is left out, since it is the same for both.
+ * The "disc" template is a typical item shape. The "comb" template is the worst case
+ * for strip merging: every other pixel is visible, and each row only differs from
+ * the next in its last pixel, so every strip compares a whole row.
+ * The images are plain pixel arrays, so no texture atlas is needed. The "masks"
+ * benchmark builds its masks every time, like the first bake of a sprite does, while
+ * "cachedMasks" reuses them, like every later pattern sharing the template does.
+ * @author SpinyQ
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpriteMaskBenchmark {
+
+	private static final Direction[] SIDES = { Direction.UP, Direction.DOWN, Direction.WEST, Direction.EAST };
+
+	@Param({ "16", "64", "256" })
+	public int size;
+
+	@Param({ "disc", "comb" })
+	public String shape;
+
+	// Pixels in the same format as getPixelRGBA, row by row
+	private int[] sprite, template;
+	private SpriteMask spriteMask, templateMask;
+
+	@Setup
+	public void setup() {
+		sprite = new int[size * size];
+		template = new int[size * size];
+		float center = size / 2f, radius = size * 0.45f;
+		for (int v = 0; v < size; v++) {
+			for (int u = 0; u < size; u++) {
+				// The template is a disc, and the sprite is diagonal stripes with gaps
+				float du = u + 0.5f - center, dv = v + 0.5f - center;
+				boolean inTemplate = shape.equals("disc") ? du * du + dv * dv < radius * radius
+						: (u == size - 1) ? v % 2 == 0 : u % 2 == 0;
+				boolean inSprite = ((u + v) * 8 / size) % 3 != 0;
+				template[v * size + u] = inTemplate ? 0xFFFFFFFF : 0x00FFFFFF;
+				sprite[v * size + u] = inSprite ? 0xFF808080 : 0x00808080;
+			}
+		}
+		spriteMask = SpriteMask.of(size, size, sprite);
+		templateMask = SpriteMask.of(size, size, template);
+	}
+
+	/**
+	 * A copy of the original visibility check, kept here as the baseline.
+	 */
+	private boolean isVisible(int[] pixels, int u, int v) {
+		if (u < 0 || u >= size || v < 0 || v >= size)
+			return false;
+		return (pixels[v * size + u] >> 24 & 255) / 255f > 0.1f;
+	}
+
+	@Benchmark
+	public int original() {
+		// The original side scan, which kept a bit set per direction
+		BitSet west = new BitSet(size * size), east = new BitSet(size * size), up = new BitSet(size * size),
+				down = new BitSet(size * size);
+		boolean[] ptv = new boolean[size];
+		Arrays.fill(ptv, true);
+		for (int v = 0; v < size; v++) {
+			boolean ptu = true;
+			for (int u = 0; u < size; u++) {
+				boolean t = !isVisible(sprite, u, v) || !isVisible(template, u, v);
+				if (ptu && !t)
+					west.set(v * size + u);
+				if (!ptu && t)
+					east.set(v * size + u - 1);
+				if (ptv[u] && !t)
+					up.set(v * size + u);
+				if (!ptv[u] && t)
+					down.set((v - 1) * size + u);
+				ptu = t;
+				ptv[u] = t;
+			}
+		}
+		int count = west.cardinality() + east.cardinality() + up.cardinality() + down.cardinality();
+		// The original strip merging, which compared rows and columns pixel by pixel
+		for (int y = 0; y < size; y++) {
+			int start = -1;
+			for (int x = 0; x <= size; x++) {
+				boolean visible = isVisible(template, x, y);
+				if (start < 0 && visible)
+					start = x;
+				if (start >= 0 && !visible) {
+					int endY = y + 1;
+					boolean sameRow = true;
+					while (sameRow && endY < size) {
+						for (int i = 0; i < size; i++) {
+							if (isVisible(template, i, y) != isVisible(template, i, endY)) {
+								sameRow = false;
+								break;
+							}
+						}
+						if (sameRow)
+							endY++;
+					}
+					count++;
+					if (endY - y > 1)
+						y = endY - 1;
+					start = -1;
+				}
+			}
+		}
+		for (int x = 0; x < size; x++) {
+			int start = -1;
+			for (int y = 0; y <= size; y++) {
+				boolean visible = isVisible(template, x, y);
+				if (start < 0 && visible)
+					start = y;
+				if (start >= 0 && !visible) {
+					int endX = x + 1;
+					boolean sameColumn = true;
+					while (sameColumn && endX < size) {
+						for (int i = 0; i < size; i++) {
+							if (isVisible(template, x, i) != isVisible(template, endX, i)) {
+								sameColumn = false;
+								break;
+							}
+						}
+						if (sameColumn)
+							endX++;
+					}
+					count++;
+					if (endX - x > 1)
+						x = endX - 1;
+					start = -1;
+				}
+			}
+		}
+		return count;
+	}
+
+	@Benchmark
+	public int masks(Blackhole blackhole) {
+		return mesh(SpriteMask.of(size, size, sprite), SpriteMask.of(size, size, template), blackhole);
+	}
+
+	@Benchmark
+	public int cachedMasks(Blackhole blackhole) {
+		return mesh(spriteMask, templateMask, blackhole);
+	}
+
+	/**
+	 * The same steps TemplateItemModel takes with masks.
+	 */
+	private static int mesh(SpriteMask sprite, SpriteMask template, Blackhole blackhole) {
+		SpriteMask mask = sprite.intersect(template);
+		int count = 0;
+		for (Direction facing : SIDES) {
+			blackhole.consume(mask.getSides(facing));
+		}
+		int w = template.getWidth(), h = template.getHeight();
+		for (int y = 0; y < h; y++) {
+			int start = -1;
+			for (int x = 0; x <= w; x++) {
+				boolean visible = template.isVisible(x, y);
+				if (start < 0 && visible)
+					start = x;
+				if (start >= 0 && !visible) {
+					int endY = y + 1;
+					while (endY < h && template.rowEquals(y, endY))
+						endY++;
+					count++;
+					if (endY - y > 1)
+						y = endY - 1;
+					start = -1;
+				}
+			}
+		}
+		for (int x = 0; x < w; x++) {
+			int start = -1;
+			for (int y = 0; y <= h; y++) {
+				boolean visible = template.isVisible(x, y);
+				if (start < 0 && visible)
+					start = y;
+				if (start >= 0 && !visible) {
+					int endX = x + 1;
+					while (endX < w && template.columnEquals(x, endX))
+						endX++;
+					count++;
+					if (endX - x > 1)
+						x = endX - 1;
+					start = -1;
+				}
+			}
+		}
+		return count;
+	}
+
+}
@@ -0,0 +1,171 @@
+package spinyq.spinytextiles.client.render;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.mojang.blaze3d.matrix.MatrixStack;
+
+import net.minecraft.client.renderer.Vector3f;
+import net.minecraft.client.renderer.entity.model.BipedModel;
+import net.minecraft.client.renderer.model.BakedQuad;
+import net.minecraft.client.renderer.model.IBakedModel;
+import net.minecraft.client.renderer.model.ItemCameraTransforms;
+import net.minecraft.client.renderer.model.ItemOverrideList;
+import net.minecraft.client.renderer.model.SimpleBakedModel;
+import net.minecraft.client.renderer.texture.OverlayTexture;
+import net.minecraft.util.Direction;
+import net.minecraftforge.client.model.data.EmptyModelData;
+import spinyq.spinytextiles.client.model.CompiledMesh;
+import spinyq.spinytextiles.client.model.RecordingVertexBuilder;
+
+/**
+ * Renders 100 clothed players into a vertex builder that only records what it is
+ * given. Compares the compiled meshes FabricPartRenderer uses now against the
+ * original render loop, which went through the baked model's quads one at a time.
+ * The original also never popped the matrix stack. The baseline pops it, so the
+ * stack doesn't grow over the run.
+ * Fabric part renderers need a model bakery, so this uses the same steps as
+ * FabricPartRenderer.render with meshes built by hand: every player wears a few
+ * parts, each with a few small cubes on every bone.
+ * @author SpinyQ
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClothingRenderBenchmark {
+
+	private static final int PLAYERS = 100, PARTS_PER_PLAYER = 4, CUBES_PER_BONE = 4;
+	private static final int LIGHT = 0xF000F0;
+
+	private final List<EnumMap<BodyPart, IBakedModel>> bakedParts = new ArrayList<>();
+	private final List<EnumMap<BodyPart, CompiledMesh>> compiledParts = new ArrayList<>();
+	private final BipedModel<?> skeleton = new BipedModel<>(0.0f);
+	private final MatrixStack stack = new MatrixStack();
+	private final Random random = new Random();
+
+	@Setup
+	public void setup() {
+		for (int part = 0; part < PARTS_PER_PLAYER; part++) {
+			EnumMap<BodyPart, IBakedModel> baked = new EnumMap<>(BodyPart.class);
+			EnumMap<BodyPart, CompiledMesh> compiled = new EnumMap<>(BodyPart.class);
+			for (BodyPart bodyPart : BodyPart.values()) {
+				List<BakedQuad> quads = new ArrayList<>();
+				for (int i = 0; i < CUBES_PER_BONE; i++) {
+					addCube(quads, i * 0.25f, part * 0.25f, 0f, 0.25f);
+				}
+				baked.put(bodyPart, createModel(quads));
+				compiled.put(bodyPart, new CompiledMesh(quads));
+			}
+			bakedParts.add(baked);
+			compiledParts.add(compiled);
+		}
+	}
+
+	private static IBakedModel createModel(List<BakedQuad> quads) {
+		EnumMap<Direction, List<BakedQuad>> faceQuads = new EnumMap<>(Direction.class);
+		for (Direction side : Direction.values()) {
+			faceQuads.put(side, Collections.emptyList());
+		}
+		return new SimpleBakedModel(quads, faceQuads, false, false, false, null, ItemCameraTransforms.DEFAULT,
+				ItemOverrideList.EMPTY);
+	}
+
+	// Adds a cube, with one quad per side
+	private static void addCube(List<BakedQuad> quads, float x0, float y0, float z0, float size) {
+		for (Direction side : Direction.values()) {
+			int[] data = new int[32];
+			// Pick two axes along the face, and place the face on the side of the cube
+			Vector3f normal = side.toVector3f();
+			for (int v = 0; v < 4; v++) {
+				float a = (v == 1 || v == 2) ? 1f : 0f, b = (v >= 2) ? 1f : 0f;
+				float x, y, z;
+				switch (side.getAxis()) {
+				case X:
+					x = Math.max(normal.getX(), 0f);
+					y = a;
+					z = b;
+					break;
+				case Y:
+					x = a;
+					y = Math.max(normal.getY(), 0f);
+					z = b;
+					break;
+				default:
+					x = a;
+					y = b;
+					z = Math.max(normal.getZ(), 0f);
+					break;
+				}
+				int offset = v * 8;
+				data[offset] = Float.floatToRawIntBits(x0 + x * size);
+				data[offset + 1] = Float.floatToRawIntBits(y0 + y * size);
+				data[offset + 2] = Float.floatToRawIntBits(z0 + z * size);
+				data[offset + 3] = -1;
+				data[offset + 4] = Float.floatToRawIntBits(a);
+				data[offset + 5] = Float.floatToRawIntBits(b);
+			}
+			quads.add(new BakedQuad(data, -1, side, null, true));
+		}
+	}
+
+	@Benchmark
+	public double original() {
+		RecordingVertexBuilder buffer = new RecordingVertexBuilder();
+		for (int player = 0; player < PLAYERS; player++) {
+			stack.push();
+			stack.translate(player % 10, 0.0, player / 10);
+			for (EnumMap<BodyPart, IBakedModel> bodyPartMap : bakedParts) {
+				for (Entry<BodyPart, IBakedModel> entry : bodyPartMap.entrySet()) {
+					stack.push();
+					entry.getKey().getBone(skeleton).translateRotate(stack);
+					for (BakedQuad quad : entry.getValue().getQuads(null, null, random, EmptyModelData.INSTANCE)) {
+						buffer.addQuad(stack.getLast(), quad, 1f, 1f, 1f, LIGHT, OverlayTexture.NO_OVERLAY);
+					}
+					stack.pop();
+				}
+			}
+			stack.pop();
+		}
+		return buffer.getResult();
+	}
+
+	@Benchmark
+	public double compiled() {
+		RecordingVertexBuilder buffer = new RecordingVertexBuilder();
+		for (int player = 0; player < PLAYERS; player++) {
+			stack.push();
+			stack.translate(player % 10, 0.0, player / 10);
+			for (EnumMap<BodyPart, CompiledMesh> bodyPartMap : compiledParts) {
+				for (Entry<BodyPart, CompiledMesh> entry : bodyPartMap.entrySet()) {
+					stack.push();
+					entry.getKey().getBone(skeleton).translateRotate(stack);
+					entry.getValue().render(buffer, stack, 1f, 1f, 1f, 1f, LIGHT, OverlayTexture.NO_OVERLAY);
+					stack.pop();
+				}
+			}
+			stack.pop();
+		}
+		return buffer.getResult();
+	}
+
+}
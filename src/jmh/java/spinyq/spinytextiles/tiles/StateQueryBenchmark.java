@@ -0,0 +1,194 @@
+package spinyq.spinytextiles.tiles;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of getting a value out of a tile's state, the way the basin
+ * renderer gets the fluid color every frame. Compares throwing the value out of a
+ * visitor, which is what older versions did, against generic state functions,
+ * which box the value, and the int state functions basins use now. Tiles need the game's registries to be constructed, so this uses a
+ * small copy of the basin's state layout: a filled state with a dye substate.
+ * Run with "-prof gc" to see the allocations of each path.
+ * @author SpinyQ
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StateQueryBenchmark {
+
+	private static final int WATER_COLOR = 0x3F76E4, NONE = Integer.MIN_VALUE;
+
+	/**
+	 * A copy of the removed FunctionHelper.Result, kept here as the baseline.
+	 */
+	private static class Result extends RuntimeException {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Object object;
+
+		public Result(Object object) {
+			this.object = object;
+		}
+
+	}
+
+	private interface Visitor {
+
+		default void visit(FilledState state) {
+		}
+
+		default void visit(DyeState state) {
+		}
+
+	}
+
+	// Like the int functions, but boxes the result
+	private interface Function<R> {
+
+		default R apply(FilledState state) {
+			return null;
+		}
+
+		default R apply(DyeState state) {
+			return null;
+		}
+
+	}
+
+	private interface IntFunction {
+
+		default int applyAsInt(FilledState state) {
+			return NONE;
+		}
+
+		default int applyAsInt(DyeState state) {
+			return NONE;
+		}
+
+	}
+
+	private static class DyeState {
+
+		private int color = 0x804020;
+
+		public void accept(Visitor visitor) {
+			visitor.visit(this);
+		}
+
+		public <R> R apply(Function<R> function) {
+			return function.apply(this);
+		}
+
+		public int applyAsInt(IntFunction function) {
+			return function.applyAsInt(this);
+		}
+
+	}
+
+	private static class FilledState {
+
+		private final DyeState state = new DyeState();
+
+		public void accept(Visitor visitor) {
+			// Visit substate first
+			state.accept(visitor);
+			visitor.visit(this);
+		}
+
+		public <R> R apply(Function<R> function) {
+			// Try substate first
+			R result = state.apply(function);
+			return (result != null) ? result : function.apply(this);
+		}
+
+		public int applyAsInt(IntFunction function) {
+			// Try substate first
+			int result = state.applyAsInt(function);
+			return (result != NONE) ? result : function.applyAsInt(this);
+		}
+
+	}
+
+	private static final Visitor THROWING = new Visitor() {
+
+		@Override
+		public void visit(FilledState state) {
+			throw new Result(WATER_COLOR);
+		}
+
+		@Override
+		public void visit(DyeState state) {
+			throw new Result(state.color);
+		}
+
+	};
+
+	private static final Function<Integer> FUNCTION = new Function<Integer>() {
+
+		@Override
+		public Integer apply(FilledState state) {
+			return WATER_COLOR;
+		}
+
+		@Override
+		public Integer apply(DyeState state) {
+			return state.color;
+		}
+
+	};
+
+	private static final IntFunction INT_FUNCTION = new IntFunction() {
+
+		@Override
+		public int applyAsInt(FilledState state) {
+			return WATER_COLOR;
+		}
+
+		@Override
+		public int applyAsInt(DyeState state) {
+			return state.color;
+		}
+
+	};
+
+	private final FilledState state = new FilledState();
+
+	@Benchmark
+	public int thrownResult() {
+		// The same steps the old FunctionHelper.getResult took
+		try {
+			state.accept(THROWING);
+			return WATER_COLOR;
+		} catch (Result result) {
+			return (Integer) result.object;
+		}
+	}
+
+	@Benchmark
+	public int stateFunction() {
+		Integer color = state.apply(FUNCTION);
+		return (color != null) ? color : WATER_COLOR;
+	}
+
+	@Benchmark
+	public int intStateFunction() {
+		int color = state.applyAsInt(INT_FUNCTION);
+		return (color != NONE) ? color : WATER_COLOR;
+	}
+
+}
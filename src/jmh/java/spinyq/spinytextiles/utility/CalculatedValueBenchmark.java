@@ -0,0 +1,101 @@
+package spinyq.spinytextiles.utility;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.Items;
+import net.minecraft.nbt.CompoundNBT;
+import net.minecraft.util.registry.Bootstrap;
+import spinyq.spinytextiles.utility.NBTHelper.CalculatedIntValue;
+import spinyq.spinytextiles.utility.color.RYBKColor;
+
+/**
+ * Reads a calculated value from 10k stacks, the way a color handler would every
+ * frame. Compares the side cache against storing the value in the stack's NBT,
+ * which is what older versions did, and against not caching at all.
+ * Run with "-prof gc" to see that side cache reads don't allocate.
+ * @author SpinyQ
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CalculatedValueBenchmark {
+
+	private static final int STACKS = 10000;
+	private static final String COLOR_TAG = "Color", VALUE_TAG = "RGB", DIRTY_TAG = "Dirty", STORED_TAG = "Value";
+
+	private final ItemStack[] stacks = new ItemStack[STACKS];
+	private final CalculatedIntValue value = NBTHelper.createCalculatedIntValue(VALUE_TAG,
+			CalculatedValueBenchmark::calculate);
+
+	@Setup
+	public void setup() {
+		// Item stacks need the vanilla registries
+		Bootstrap.register();
+		for (int i = 0; i < STACKS; i++) {
+			ItemStack stack = new ItemStack(Items.STRING);
+			stack.getOrCreateTag().putInt(COLOR_TAG, i * 0x01010101);
+			stacks[i] = stack;
+		}
+	}
+
+	private static int calculate(ItemStack stack) {
+		return new RYBKColor().fromInt(stack.getTag().getInt(COLOR_TAG)).toRGBInt(null);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(STACKS)
+	public int sideCache() {
+		int sum = 0;
+		for (ItemStack stack : stacks) {
+			sum += value.get(stack);
+		}
+		return sum;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(STACKS)
+	public int storedInNBT() {
+		int sum = 0;
+		for (ItemStack stack : stacks) {
+			// The same steps the old CalculatedValue took
+			CompoundNBT compound = stack.getOrCreateChildTag(VALUE_TAG);
+			if (compound.contains(STORED_TAG) && !stack.getOrCreateChildTag(VALUE_TAG).getBoolean(DIRTY_TAG)) {
+				sum += compound.getInt(STORED_TAG);
+			} else {
+				int calculated = calculate(stack);
+				compound.putBoolean(DIRTY_TAG, false);
+				compound.putInt(STORED_TAG, calculated);
+				sum += calculated;
+			}
+		}
+		return sum;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(STACKS)
+	public int uncached() {
+		int sum = 0;
+		for (ItemStack stack : stacks) {
+			sum += calculate(stack);
+		}
+		return sum;
+	}
+
+}
@@ -0,0 +1,87 @@
+package spinyq.spinytextiles.utility.color;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures nearest color lookups as the palette grows. The k-d tree should stay
+ * roughly flat, while the linear search grows with the palette.
+ * @author SpinyQ
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ColorTreeBenchmark {
+
+	// A power of two, so the index can wrap with a mask
+	private static final int QUERIES = 1024;
+
+	@Param({ "16", "64", "256", "1024" })
+	public int paletteSize;
+
+	private List<RYBKColor> palette;
+	private ColorTree<RYBKColor> tree;
+	private final RYBKColor[] queries = new RYBKColor[QUERIES];
+	private int index;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(0);
+		palette = new ArrayList<>(paletteSize);
+		for (int i = 0; i < paletteSize; i++) {
+			palette.add(randomColor(random));
+		}
+		tree = new ColorTree<>(palette, Function.identity());
+		for (int i = 0; i < QUERIES; i++) {
+			queries[i] = randomColor(random);
+		}
+	}
+
+	private static RYBKColor randomColor(Random random) {
+		return new RYBKColor(random.nextFloat(), random.nextFloat(), random.nextFloat(), random.nextFloat());
+	}
+
+	private RYBKColor next() {
+		index = (index + 1) & (QUERIES - 1);
+		return queries[index];
+	}
+
+	@Benchmark
+	public RYBKColor tree() {
+		return tree.getNearest(next());
+	}
+
+	@Benchmark
+	public RYBKColor linear() {
+		RYBKColor to = next(), closest = null;
+		float closestDist = Float.POSITIVE_INFINITY;
+		for (int i = 0; i < palette.size(); i++) {
+			float dist = palette.get(i).distSquared(to);
+			if (dist < closestDist) {
+				closest = palette.get(i);
+				closestDist = dist;
+			}
+		}
+		return closest;
+	}
+
+}
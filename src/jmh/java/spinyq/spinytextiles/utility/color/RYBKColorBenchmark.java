@@ -0,0 +1,100 @@
+package spinyq.spinytextiles.utility.color;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import spinyq.spinytextiles.utility.color.RYBKColor.Axis;
+
+/**
+ * Compares the RYBK to RGB conversion against the original one, which
+ * interpolated whole RGBColors through a boxed bias function.
+ * Run with "-prof gc" to see the allocations of each path.
+ * @author SpinyQ
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RYBKColorBenchmark {
+
+	// A power of two, so the index can wrap with a mask
+	private static final int COUNT = 1024;
+
+	/**
+	 * A copy of the original conversion, kept here as the baseline.
+	 */
+	private static final class Original {
+
+		private static final RGBColor[] RGB_POINTS = { new RGBColor(1.0f, 1.0f, 1.0f),
+				new RGBColor(0.163f, 0.373f, 0.95f), new RGBColor(1.0f, 1.0f, 0.0f), new RGBColor(0.0f, 0.95f, 0.2f),
+				new RGBColor(1.0f, 0.0f, 0.0f), new RGBColor(0.75f, 0.0f, 0.75f), new RGBColor(1.0f, 0.5f, 0.0f),
+				new RGBColor(0.2f, 0.094f, 0.0f), };
+		private static final RGBColor BLACK = new RGBColor(0.2f, 0.2f, 0.2f);
+		private static final Function<Float, Float> BIAS_FUNCTION = (f) -> f * f * (3 - 2 * f);
+
+		private static RGBColor getRGBPoint(int r, int y, int b) {
+			return RGB_POINTS[r * 4 + y * 2 + b];
+		}
+
+		private static RGBColor toRGB(RYBKColor rybk, RGBColor color) {
+			float rb = BIAS_FUNCTION.apply(rybk.get(Axis.RED)), yb = BIAS_FUNCTION.apply(rybk.get(Axis.YELLOW)),
+					bb = BIAS_FUNCTION.apply(rybk.get(Axis.BLUE));
+			RGBColor c00 = getRGBPoint(0, 0, 0).interp(getRGBPoint(0, 0, 1), bb),
+					c01 = getRGBPoint(0, 1, 0).interp(getRGBPoint(0, 1, 1), bb),
+					c10 = getRGBPoint(1, 0, 0).interp(getRGBPoint(1, 0, 1), bb),
+					c11 = getRGBPoint(1, 1, 0).interp(getRGBPoint(1, 1, 1), bb);
+			RGBColor c0 = c00.interp(c01, yb), c1 = c10.interp(c11, yb);
+			color.setAll(c0.interp(c1, rb).interp(BLACK, rybk.get(Axis.BLACK)));
+			return color;
+		}
+
+	}
+
+	private final RYBKColor[] colors = new RYBKColor[COUNT];
+	private final RGBColor scratch = new RGBColor();
+	private int index;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(0);
+		for (int i = 0; i < COUNT; i++) {
+			colors[i] = new RYBKColor(random.nextFloat(), random.nextFloat(), random.nextFloat(), random.nextFloat());
+		}
+	}
+
+	private RYBKColor next() {
+		index = (index + 1) & (COUNT - 1);
+		return colors[index];
+	}
+
+	@Benchmark
+	public int original() {
+		return Original.toRGB(next(), scratch).toInt();
+	}
+
+	@Benchmark
+	public int toRGB() {
+		return next().toRGB(scratch, null).toInt();
+	}
+
+	@Benchmark
+	public int toRGBInt() {
+		return next().toRGBInt(null);
+	}
+
+}
@@ -0,0 +1,147 @@
+package spinyq.spinytextiles.utility.textile.fabric;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.minecraft.nbt.CompoundNBT;
+import net.minecraft.nbt.CompressedStreamTools;
+import net.minecraft.nbt.IntNBT;
+
+/**
+ * Compares the compact fabric layout against the old one, for patterns with 1 to 16
+ * layers. Each benchmark writes or reads the fabric's NBT the way an item stack is
+ * sent over the network. The encoding benchmarks also report the encoded size of
+ * their layout as an extra counter, in bytes.
+ * The NBT is built by hand with the same tags NBTFabric uses, so no registries are
+ * needed.
+ * @author SpinyQ
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FabricLayoutBenchmark {
+
+	private static final String DATA_TAG = "Data", PATTERN_TAG = "Pattern", COLORS_TAG = "Colors";
+	private static final String PATTERN_NAME = "spinytextiles:stripes";
+	private static final int PATTERN_ID = 3;
+
+	/**
+	 * The encoded size of each layout, which JMH reports next to the timings.
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class EncodedSize {
+
+		public long legacyBytes, compactBytes;
+
+	}
+
+	@Param({ "1", "2", "4", "8", "16" })
+	public int layers;
+
+	private String[] layerNames;
+	private int[] colors;
+	private byte[] legacyBytes, compactBytes;
+	private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+	@Setup
+	public void setup() throws IOException {
+		Random random = new Random(0);
+		layerNames = new String[layers];
+		colors = new int[layers];
+		for (int i = 0; i < layers; i++) {
+			layerNames[i] = "spinytextiles:stripes_layer_" + i;
+			colors[i] = random.nextInt();
+		}
+		legacyBytes = encode(writeLegacy());
+		compactBytes = encode(writeCompact());
+	}
+
+	private CompoundNBT writeLegacy() {
+		CompoundNBT nbt = new CompoundNBT(), colorsNBT = new CompoundNBT();
+		nbt.putString(PATTERN_TAG, PATTERN_NAME);
+		for (int i = 0; i < layers; i++) {
+			colorsNBT.put(layerNames[i], IntNBT.valueOf(colors[i]));
+		}
+		nbt.put(COLORS_TAG, colorsNBT);
+		return nbt;
+	}
+
+	private CompoundNBT writeCompact() {
+		CompoundNBT nbt = new CompoundNBT();
+		int[] data = new int[layers + 1];
+		data[0] = PATTERN_ID;
+		System.arraycopy(colors, 0, data, 1, layers);
+		nbt.putIntArray(DATA_TAG, data);
+		return nbt;
+	}
+
+	private byte[] encode(CompoundNBT nbt) throws IOException {
+		out.reset();
+		CompressedStreamTools.write(nbt, new DataOutputStream(out));
+		return out.toByteArray();
+	}
+
+	private static CompoundNBT decode(byte[] bytes) throws IOException {
+		return CompressedStreamTools.read(new DataInputStream(new ByteArrayInputStream(bytes)));
+	}
+
+	@Benchmark
+	public byte[] encodeLegacy(EncodedSize size) throws IOException {
+		byte[] bytes = encode(writeLegacy());
+		size.legacyBytes = bytes.length;
+		return bytes;
+	}
+
+	@Benchmark
+	public byte[] encodeCompact(EncodedSize size) throws IOException {
+		byte[] bytes = encode(writeCompact());
+		size.compactBytes = bytes.length;
+		return bytes;
+	}
+
+	@Benchmark
+	public int decodeLegacy() throws IOException {
+		// Read every layer's color back, the way the old NBTFabric did
+		CompoundNBT nbt = decode(legacyBytes);
+		CompoundNBT colorsNBT = nbt.getCompound(COLORS_TAG);
+		int sum = nbt.getString(PATTERN_TAG).length();
+		for (int i = 0; i < layers; i++) {
+			sum += colorsNBT.getInt(layerNames[i]);
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public int decodeCompact() throws IOException {
+		int[] data = decode(compactBytes).getIntArray(DATA_TAG);
+		int sum = 0;
+		for (int i = 0; i < data.length; i++) {
+			sum += data[i];
+		}
+		return sum;
+	}
+
+}
@@ -0,0 +1,97 @@
+package spinyq.spinytextiles;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.common.ForgeConfigSpec;
+import net.minecraftforge.common.ForgeConfigSpec.BooleanValue;
+import net.minecraftforge.common.ForgeConfigSpec.IntValue;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod.EventBusSubscriber;
+import net.minecraftforge.fml.common.Mod.EventBusSubscriber.Bus;
+import net.minecraftforge.fml.config.ModConfig;
+
+/**
+ * Holds the client-side options of the mod.
+ * These only affect how things are rendered, so every player can choose their own.
+ * @author SpinyQ
+ *
+ */
+@EventBusSubscriber(bus = Bus.MOD, value = Dist.CLIENT)
+public class ClientConfig {
+
+	private static final Logger LOGGER = LogManager.getLogger();
+
+	public static final ForgeConfigSpec SPEC;
+	public static final ClientConfig INSTANCE;
+
+	static {
+		Pair<ClientConfig, ForgeConfigSpec> pair = new ForgeConfigSpec.Builder().configure(ClientConfig::new);
+		INSTANCE = pair.getLeft();
+		SPEC = pair.getRight();
+	}
+
+	public final BooleanValue lazyFabricModels, quadDiskCache, compositeFabricItems;
+	public final IntValue fabricModelCacheSize, prewarmedFabricModels, fabricAtlasSlots, quadDiskCacheSize;
+	public final IntValue clothingDetailDistance, clothingDistance, spinningWheelDistance;
+
+	private ClientConfig(ForgeConfigSpec.Builder builder) {
+		builder.push("models");
+		lazyFabricModels = builder
+				.comment("Only bake the model of a fabric pattern the first time it is needed.",
+						"This speeds up loading and resource reloads when there are a lot of patterns.")
+				.define("lazyFabricModels", false);
+		fabricModelCacheSize = builder
+				.comment("How many fabric pattern models are kept at once when lazy baking is enabled.")
+				.defineInRange("fabricModelCacheSize", 64, 1, Integer.MAX_VALUE);
+		prewarmedFabricModels = builder
+				.comment("How many of the most used fabric patterns are baked in the background after loading",
+						"when lazy baking is enabled.")
+				.defineInRange("prewarmedFabricModels", 16, 0, Integer.MAX_VALUE);
+		quadDiskCache = builder
+				.comment("Save generated item quads in the game directory, so they don't have to be generated again",
+						"on the next launch or resource reload.")
+				.define("quadDiskCache", true);
+		quadDiskCacheSize = builder
+				.comment("How many megabytes the saved item quads may take up. When there are more, the ones",
+						"which were used least recently are deleted.")
+				.defineInRange("quadDiskCacheSize", 64, 1, 65536);
+		compositeFabricItems = builder
+				.comment("Combine the layers of each fabric item into one texture, instead of drawing every layer.",
+						"Fabric items then use far fewer quads, but each differently colored fabric takes up space",
+						"in a texture of its own.")
+				.define("compositeFabricItems", false);
+		fabricAtlasSlots = builder
+				.comment("How many composited fabrics can be stored at once. The texture they are stored in is sized",
+						"to fit this many. Fabrics which don't fit are rendered without compositing.")
+				.defineInRange("fabricAtlasSlots", 64, 1, 1024);
+		builder.pop();
+		builder.comment("Distances, in blocks, past which things are rendered with less detail.").push("lod");
+		clothingDetailDistance = builder
+				.comment("Small parts of clothing, like buttons and trims, aren't rendered past this distance.",
+						"This can't be more than clothingDistance.")
+				.defineInRange("clothingDetailDistance", 24, 0, 1024);
+		clothingDistance = builder
+				.comment("Clothing isn't rendered at all past this distance.")
+				.defineInRange("clothingDistance", 128, 0, 1024);
+		spinningWheelDistance = builder
+				.comment("The thread on spinning wheels isn't rendered past this distance.")
+				.defineInRange("spinningWheelDistance", 48, 0, 1024);
+		builder.pop();
+	}
+
+	@SubscribeEvent
+	public static void onConfigChanged(ModConfig.ModConfigEvent event) {
+		if (event.getConfig().getSpec() != SPEC) return;
+		// Details of clothing can't be rendered farther away than the clothing itself
+		int detailDistance = INSTANCE.clothingDetailDistance.get(), distance = INSTANCE.clothingDistance.get();
+		if (detailDistance > distance) {
+			LOGGER.warn("clothingDetailDistance ({}) is more than clothingDistance ({}), lowering it to match",
+					detailDistance, distance);
+			INSTANCE.clothingDetailDistance.set(distance);
+		}
+	}
+
+}
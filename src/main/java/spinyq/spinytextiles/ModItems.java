@@ -10,6 +10,7 @@ import net.minecraftforge.fml.common.Mod.EventBusSubscriber.Bus;
 import net.minecraftforge.fml.javafmlmod.FMLJavaModLoadingContext;
 import net.minecraftforge.registries.DeferredRegister;
 import net.minecraftforge.registries.ForgeRegistries;
+import spinyq.spinytextiles.client.render.FabricItemRenderer;
 import spinyq.spinytextiles.items.FabricItem;
 import spinyq.spinytextiles.items.FiberItem;
 import spinyq.spinytextiles.items.ThreadItem;
@@ -30,7 +31,8 @@ public class ModItems {
 			() -> new ThreadItem(new Item.Properties().group(ItemGroupTextiles.instance)));
 
 	public static final RegistryObject<FabricItem> FABRIC_ITEM = ITEMS.register("fabric",
-			() -> new FabricItem(new Item.Properties().group(ItemGroupTextiles.instance)));
+			() -> new FabricItem(new Item.Properties().group(ItemGroupTextiles.instance)
+					.setISTER(() -> FabricItemRenderer::new)));
 	
 	public static final RegistryObject<FiberItem> WHITE_WOOL_FIBER_ITEM = ITEMS.register("white_wool_fiber",
 			() -> new FiberItem(new Item.Properties().group(ItemGroupTextiles.instance),
@@ -0,0 +1,37 @@
+package spinyq.spinytextiles;
+
+import java.util.Optional;
+
+import net.minecraft.util.ResourceLocation;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod.EventBusSubscriber;
+import net.minecraftforge.fml.common.Mod.EventBusSubscriber.Bus;
+import net.minecraftforge.fml.event.lifecycle.FMLCommonSetupEvent;
+import net.minecraftforge.fml.network.NetworkDirection;
+import net.minecraftforge.fml.network.NetworkRegistry;
+import net.minecraftforge.fml.network.simple.SimpleChannel;
+import spinyq.spinytextiles.network.ColorPaletteMessage;
+import spinyq.spinytextiles.network.DeltaUpdateMessage;
+
+@EventBusSubscriber(bus = Bus.MOD)
+public class ModNetwork {
+
+	private static final String PROTOCOL_VERSION = "1";
+	
+	public static final SimpleChannel CHANNEL = NetworkRegistry.newSimpleChannel(
+			new ResourceLocation(TextileMod.MODID, "main"),
+			() -> PROTOCOL_VERSION,
+			PROTOCOL_VERSION::equals,
+			PROTOCOL_VERSION::equals);
+	
+	@SubscribeEvent
+	public static void onCommonSetup(FMLCommonSetupEvent event) {
+		// Register all of our messages
+		int id = 0;
+		CHANNEL.registerMessage(id++, ColorPaletteMessage.class, ColorPaletteMessage::encode,
+				ColorPaletteMessage::decode, ColorPaletteMessage::handle, Optional.of(NetworkDirection.PLAY_TO_CLIENT));
+		CHANNEL.registerMessage(id++, DeltaUpdateMessage.class, DeltaUpdateMessage::encode,
+				DeltaUpdateMessage::decode, DeltaUpdateMessage::handle, Optional.of(NetworkDirection.PLAY_TO_CLIENT));
+	}
+	
+}
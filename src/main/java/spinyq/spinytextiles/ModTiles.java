@@ -13,7 +13,6 @@ import net.minecraftforge.fml.event.lifecycle.FMLClientSetupEvent;
 import net.minecraftforge.fml.javafmlmod.FMLJavaModLoadingContext;
 import net.minecraftforge.registries.DeferredRegister;
 import net.minecraftforge.registries.ForgeRegistries;
-import spinyq.spinytextiles.client.render.BasinRenderer;
 import spinyq.spinytextiles.client.render.SpinningWheelRenderer;
 import spinyq.spinytextiles.tiles.BasinTile;
 import spinyq.spinytextiles.tiles.SpinningWheelTile;
@@ -37,7 +36,6 @@ public class ModTiles {
 	@SubscribeEvent
 	@OnlyIn(Dist.CLIENT)
 	public static void onClientSetup(FMLClientSetupEvent event) {
-		ClientRegistry.bindTileEntityRenderer(BASIN_TILE.get(), BasinRenderer::new);
 		ClientRegistry.bindTileEntityRenderer(SPINNING_WHEEL_TILE.get(), SpinningWheelRenderer::new);
 	}
 	
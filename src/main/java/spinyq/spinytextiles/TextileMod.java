@@ -1,11 +1,18 @@
 package spinyq.spinytextiles;
 
+import net.minecraftforge.fml.ModLoadingContext;
 import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.fml.config.ModConfig;
 
 @Mod(TextileMod.MODID)
 public class TextileMod
 {
 	
 	public static final String MODID = "spinytextiles";
+	
+	public TextileMod() {
+		// Register our configs
+		ModLoadingContext.get().registerConfig(ModConfig.Type.CLIENT, ClientConfig.SPEC);
+	}
     
 }
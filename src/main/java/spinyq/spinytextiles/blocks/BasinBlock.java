@@ -4,9 +4,14 @@ import java.util.Random;
 
 import net.minecraft.block.Block;
 import net.minecraft.block.BlockState;
+import net.minecraft.client.renderer.RenderType;
+import net.minecraft.client.renderer.RenderTypeLookup;
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.particles.ParticleTypes;
 import net.minecraft.pathfinding.PathType;
+import net.minecraft.state.IntegerProperty;
+import net.minecraft.state.StateContainer;
+import net.minecraft.state.properties.BlockStateProperties;
 import net.minecraft.tileentity.TileEntity;
 import net.minecraft.util.ActionResultType;
 import net.minecraft.util.Hand;
@@ -18,6 +23,12 @@ import net.minecraft.util.math.shapes.VoxelShape;
 import net.minecraft.util.math.shapes.VoxelShapes;
 import net.minecraft.world.IBlockReader;
 import net.minecraft.world.World;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.api.distmarker.OnlyIn;
+import net.minecraftforge.client.event.ColorHandlerEvent;
+import net.minecraftforge.client.event.ModelRegistryEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.javafmlmod.FMLJavaModLoadingContext;
 import spinyq.spinytextiles.tiles.BasinTile;
 import spinyq.spinytextiles.tiles.BasinTile.BasinStateVisitor;
 import spinyq.spinytextiles.tiles.BasinTile.FilledState;
@@ -33,6 +44,10 @@ public class BasinBlock extends Block {
 					makeCuboidShape(2.0D, 0.0D, 2.0D, 14.0D, 3.0D, 14.0D), INSIDE),
 			IBooleanFunction.ONLY_FIRST);
 
+	// Water level of the basin, mirrored from the tile entity so the fluid can be
+	// part of the block model
+	public static final IntegerProperty LEVEL = BlockStateProperties.LEVEL_0_8;
+
 	@Override
 	public ActionResultType onBlockActivated(BlockState state, World world, BlockPos pos, PlayerEntity player,
 			Hand handIn, BlockRayTraceResult hit) {
@@ -87,6 +102,36 @@ public class BasinBlock extends Block {
 
 	public BasinBlock(Properties properties) {
 		super(properties);
+		this.setDefaultState(this.stateContainer.getBaseState().with(LEVEL, 0));
+		// Make sure we receive events so we can set our render type and colors
+		FMLJavaModLoadingContext.get().getModEventBus().register(this);
+	}
+
+	@OnlyIn(Dist.CLIENT)
+	@SubscribeEvent
+	public void onModelRegistry(ModelRegistryEvent event) {
+		// The basin is solid and the fluid is translucent
+		// The models are split into layers, so each layer only gets its own quads
+		RenderTypeLookup.setRenderLayer(this, (layer) -> layer == RenderType.getSolid() || layer == RenderType.getTranslucent());
+	}
+
+	@OnlyIn(Dist.CLIENT)
+	@SubscribeEvent
+	public void onBlockColorHandler(ColorHandlerEvent.Block event) {
+		// Tint the fluid with the color of the basin's contents
+		event.getBlockColors().register((state, world, pos, tintIndex) -> {
+			if (world != null && pos != null) {
+				TileEntity tile = world.getTileEntity(pos);
+				if (tile instanceof BasinTile)
+					return ((BasinTile) tile).getFluidColor();
+			}
+			return BasinTile.WATER_COLOR.toInt();
+		}, this);
+	}
+
+	@Override
+	protected void fillStateContainer(StateContainer.Builder<Block, BlockState> builder) {
+		builder.add(LEVEL);
 	}
 
 	@Override
@@ -0,0 +1,128 @@
+package spinyq.spinytextiles.client.model;
+
+import java.util.Collection;
+
+import com.mojang.blaze3d.matrix.MatrixStack;
+import com.mojang.blaze3d.vertex.IVertexBuilder;
+
+import net.minecraft.client.renderer.Matrix3f;
+import net.minecraft.client.renderer.Matrix4f;
+import net.minecraft.client.renderer.Vector3f;
+import net.minecraft.client.renderer.Vector4f;
+import net.minecraft.client.renderer.model.BakedQuad;
+import net.minecraft.util.Direction;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.api.distmarker.OnlyIn;
+
+/**
+ * A list of quads packed into one flat array, ready to be written to a vertex
+ * builder.
+ * The vertex data of each quad is decoded once when compiling, so rendering
+ * doesn't have to unpack baked quads every frame.
+ * Not thread-safe, since rendering reuses the same scratch vectors.
+ * @author SpinyQ
+ *
+ */
+@OnlyIn(Dist.CLIENT)
+public class CompiledMesh {
+
+	// Stride of a vertex in baked quad data
+	private static final int QUAD_VERTEX_SIZE = 8;
+	// Stride of a vertex in the packed array: position, UV and normal
+	private static final int VERTEX_SIZE = 8;
+
+	private final int numVertices;
+	private final float[] vertices;
+	// The largest extent of the mesh's bounding box along any axis
+	private final float size;
+	private final Vector4f position = new Vector4f();
+	private final Vector3f normal = new Vector3f();
+
+	public CompiledMesh(Collection<BakedQuad> quads) {
+		numVertices = quads.size() * 4;
+		vertices = new float[numVertices * VERTEX_SIZE];
+		int i = 0;
+		for (BakedQuad quad : quads) {
+			int[] data = quad.getVertexData();
+			// Use the baked normal if there is one, like IVertexBuilder.applyBakedNormals
+			// Otherwise use the direction of the face
+			float normalX, normalY, normalZ;
+			int packedNormal = data[7];
+			if ((packedNormal & 0xFFFFFF) != 0) {
+				normalX = ((byte) (packedNormal & 0xFF)) / 127.0f;
+				normalY = ((byte) ((packedNormal >> 8) & 0xFF)) / 127.0f;
+				normalZ = ((byte) ((packedNormal >> 16) & 0xFF)) / 127.0f;
+			} else {
+				Direction face = quad.getFace();
+				normalX = face.getXOffset();
+				normalY = face.getYOffset();
+				normalZ = face.getZOffset();
+			}
+			for (int v = 0; v < 4; v++) {
+				int offset = v * QUAD_VERTEX_SIZE;
+				vertices[i++] = Float.intBitsToFloat(data[offset]);
+				vertices[i++] = Float.intBitsToFloat(data[offset + 1]);
+				vertices[i++] = Float.intBitsToFloat(data[offset + 2]);
+				vertices[i++] = Float.intBitsToFloat(data[offset + 4]);
+				vertices[i++] = Float.intBitsToFloat(data[offset + 5]);
+				vertices[i++] = normalX;
+				vertices[i++] = normalY;
+				vertices[i++] = normalZ;
+			}
+		}
+		size = computeSize();
+	}
+
+	private float computeSize() {
+		if (numVertices == 0)
+			return 0f;
+		float size = 0f;
+		for (int axis = 0; axis < 3; axis++) {
+			float min = Float.POSITIVE_INFINITY, max = Float.NEGATIVE_INFINITY;
+			for (int v = 0; v < numVertices; v++) {
+				float value = vertices[v * VERTEX_SIZE + axis];
+				min = Math.min(min, value);
+				max = Math.max(max, value);
+			}
+			size = Math.max(size, max - min);
+		}
+		return size;
+	}
+
+	public int getQuadCount() {
+		return numVertices / 4;
+	}
+
+	/**
+	 * Returns the largest extent of the mesh along any axis, in the units of its
+	 * vertices.
+	 */
+	public float getSize() {
+		return size;
+	}
+
+	/**
+	 * Writes the whole mesh to a vertex builder, transformed by the top of the
+	 * matrix stack.
+	 */
+	public void render(IVertexBuilder buffer, MatrixStack stack, float red, float green, float blue, float alpha,
+			int combinedLightIn, int combinedOverlayIn) {
+		MatrixStack.Entry entry = stack.getLast();
+		Matrix4f matrix = entry.getMatrix();
+		Matrix3f normalMatrix = entry.getNormal();
+		for (int v = 0; v < numVertices; v++) {
+			int i = v * VERTEX_SIZE;
+			// Every vertex of a quad has the same normal, so only transform it once per quad
+			if (v % 4 == 0) {
+				normal.set(vertices[i + 5], vertices[i + 6], vertices[i + 7]);
+				normal.transform(normalMatrix);
+			}
+			position.set(vertices[i], vertices[i + 1], vertices[i + 2], 1.0f);
+			position.transform(matrix);
+			buffer.addVertex(position.getX(), position.getY(), position.getZ(), red, green, blue, alpha,
+					vertices[i + 3], vertices[i + 4], combinedOverlayIn, combinedLightIn, normal.getX(),
+					normal.getY(), normal.getZ());
+		}
+	}
+
+}
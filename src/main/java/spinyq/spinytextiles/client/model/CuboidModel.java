@@ -1,14 +1,11 @@
 package spinyq.spinytextiles.client.model;
 
-import java.nio.Buffer;
-import java.nio.ByteBuffer;
-import java.nio.IntBuffer;
 import java.util.EnumMap;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.lwjgl.system.MemoryStack;
 
 import com.google.common.base.MoreObjects;
 import com.google.common.collect.ImmutableList;
@@ -19,11 +16,9 @@ import com.mojang.blaze3d.vertex.IVertexBuilder;
 
 import net.minecraft.client.renderer.TransformationMatrix;
 import net.minecraft.client.renderer.Vector3f;
-import net.minecraft.client.renderer.Vector4f;
 import net.minecraft.client.renderer.model.BakedQuad;
 import net.minecraft.client.renderer.model.Material;
 import net.minecraft.client.renderer.texture.TextureAtlasSprite;
-import net.minecraft.client.renderer.vertex.DefaultVertexFormats;
 import net.minecraft.client.renderer.vertex.VertexFormat;
 import net.minecraft.util.Direction;
 import net.minecraft.util.math.Vec2f;
@@ -157,21 +152,24 @@ public class CuboidModel {
 
 	}
 
+	/**
+	 * A cuboid that is ready to be rendered.
+	 * The quads are compiled into a mesh when baking, so rendering can write
+	 * straight to a vertex builder.
+	 * Not thread-safe, since the mesh reuses the same scratch vectors.
+	 */
 	@OnlyIn(Dist.CLIENT)
 	public static class BakedCuboid {
 
-		private ImmutableList<BakedQuad> quads;
+		private final CompiledMesh mesh;
 
-		private BakedCuboid(ImmutableList<BakedQuad> quads) {
-			this.quads = quads;
+		private BakedCuboid(List<BakedQuad> quads) {
+			mesh = new CompiledMesh(quads);
 		}
 
 		public void render(IVertexBuilder buffer, MatrixStack stack, RGBAColor color, int combinedLightIn,
 				int combinedOverlayIn) {
-			MatrixStack.Entry entry = stack.getLast();
-			for (BakedQuad quad : quads) {
-				renderQuad(buffer, quad, entry, color, combinedLightIn, combinedOverlayIn);
-			}
+			mesh.render(buffer, stack, color.r, color.g, color.b, color.a, combinedLightIn, combinedOverlayIn);
 		}
 
 	}
@@ -363,35 +361,4 @@ public class CuboidModel {
 		}
 	}
 
-	// Adapted from IVertexBuilder to allow for alpha
-	private static void renderQuad(IVertexBuilder buffer, BakedQuad quad, MatrixStack.Entry entry, RGBAColor color,
-			int combinedLightIn, int combinedOverlayIn) {
-		int[] aint = quad.getVertexData();
-		Vector3f vector3f = quad.getFace().toVector3f();
-		vector3f.transform(entry.getNormal());
-		int numVertices = aint.length / 8;
-
-		try (MemoryStack memorystack = MemoryStack.stackPush()) {
-			ByteBuffer bytebuffer = memorystack.malloc(DefaultVertexFormats.BLOCK.getSize());
-			IntBuffer intbuffer = bytebuffer.asIntBuffer();
-
-			for (int i = 0; i < numVertices; ++i) {
-				((Buffer) intbuffer).clear();
-				intbuffer.put(aint, i * 8, 8);
-				float f = bytebuffer.getFloat(0);
-				float f1 = bytebuffer.getFloat(4);
-				float f2 = bytebuffer.getFloat(8);
-
-				int l = buffer.applyBakedLighting(combinedLightIn, bytebuffer);
-				float f9 = bytebuffer.getFloat(16);
-				float f10 = bytebuffer.getFloat(20);
-				Vector4f vector4f = new Vector4f(f, f1, f2, 1.0F);
-				vector4f.transform(entry.getMatrix());
-				buffer.applyBakedNormals(vector3f, bytebuffer, entry.getNormal());
-				buffer.addVertex(vector4f.getX(), vector4f.getY(), vector4f.getZ(), color.r, color.g, color.b, color.a,
-						f9, f10, combinedOverlayIn, l, vector3f.getX(), vector3f.getY(), vector3f.getZ());
-			}
-		}
-	}
-
 }
@@ -1,29 +1,39 @@
 package spinyq.spinytextiles.client.model;
 
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 import javax.annotation.Nullable;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.google.common.collect.ConcurrentHashMultiset;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
 import com.google.gson.JsonDeserializationContext;
 import com.google.gson.JsonObject;
 import com.mojang.datafixers.util.Pair;
 
 import net.minecraft.client.Minecraft;
+import net.minecraft.client.renderer.TransformationMatrix;
 import net.minecraft.client.renderer.model.IBakedModel;
 import net.minecraft.client.renderer.model.IModelTransform;
 import net.minecraft.client.renderer.model.IUnbakedModel;
+import net.minecraft.client.renderer.model.ItemCameraTransforms.TransformType;
 import net.minecraft.client.renderer.model.ItemOverrideList;
 import net.minecraft.client.renderer.model.Material;
 import net.minecraft.client.renderer.model.ModelBakery;
@@ -44,14 +54,15 @@ import net.minecraftforge.client.model.geometry.IModelGeometry;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
 import net.minecraftforge.fml.common.Mod.EventBusSubscriber;
 import net.minecraftforge.fml.common.Mod.EventBusSubscriber.Bus;
-import net.minecraftforge.registries.IForgeRegistry;
 import net.minecraftforge.resource.IResourceType;
 import net.minecraftforge.resource.VanillaResourceType;
+import spinyq.spinytextiles.ClientConfig;
 import spinyq.spinytextiles.TextileMod;
+import spinyq.spinytextiles.client.render.FabricAtlas;
 import spinyq.spinytextiles.items.FabricItem;
 import spinyq.spinytextiles.utility.registry.LazyForgeRegistry;
 import spinyq.spinytextiles.utility.textile.fabric.FabricPattern;
-import spinyq.spinytextiles.utility.textile.fabric.IFabric;
+import spinyq.spinytextiles.utility.textile.fabric.FabricSnapshot;
 
 /**
  * The model used by FabricItem.
@@ -61,6 +72,16 @@ import spinyq.spinytextiles.utility.textile.fabric.IFabric;
  * actual FabricItem item with its model. This requires setting the "loader" field
  * in the item's model file to the ID of the custom loader.
  * The submodels are generated by applying a template to each layer of the fabric pattern.
+ * Submodels are baked in parallel, since there can be a lot of patterns.
+ * If lazy baking is enabled in the client config, a submodel is instead only baked
+ * the first time it is needed, and only a limited number are kept. Lazy models are
+ * baked in the background, and the missing model is shown until they are ready.
+ * Submodels are stored in arrays indexed by their pattern's registry ID, since
+ * they are looked up for every fabric item rendered every frame.
+ * If compositing is enabled, fabric items instead use a built-in model, and are
+ * drawn by FabricItemRenderer using a texture which has all of the fabric's layers
+ * combined. Fabrics which don't fit into the fabric atlas fall back to their
+ * submodels, which are then baked lazily.
  * @author SpinyQ
  *
  */
@@ -70,7 +91,16 @@ public final class FabricItemModel implements IModelGeometry<FabricItemModel> {
 	private static final String TEMPLATE_TAG = "template";
 	private static final String DETAIL_TAG = "detail";
 	
-	private static final IForgeRegistry<FabricPattern> PATTERN_REGISTRY = LazyForgeRegistry.of(FabricPattern.class);
+	private static final Logger LOGGER = LogManager.getLogger();
+	// How long to wait before baking a submodel again after it failed, in milliseconds
+	private static final long RETRY_DELAY = 5000;
+	
+	private static final LazyForgeRegistry<FabricPattern> PATTERN_REGISTRY = LazyForgeRegistry.of(FabricPattern.class);
+
+	// Counts how many times each pattern has been needed since the game started
+	// Patterns are only counted once per model, so this survives resource reloads
+	// and tells us which patterns to pre-warm
+	private static final ConcurrentHashMultiset<FabricPattern> PATTERN_USES = ConcurrentHashMultiset.create();
 
 	/**
 	 * A boring model loader which simply returns a new FabricItemModel.
@@ -123,9 +153,12 @@ public final class FabricItemModel implements IModelGeometry<FabricItemModel> {
 				// Check if the item actually has fabric info attached
 				// If it doesn't, return the missing model
 				// If not, look up the corresponding model using the fabric pattern
-				IFabric fabric = item.getFabric(stack);
+				FabricSnapshot fabric = item.getFabricSnapshot(stack);
 				if (fabric != null) {
-					return bakedSubModels.get(fabric.getPattern());
+					// Fabrics which don't fit into the atlas this frame use their submodel instead
+					if (compositeModel != null && FabricAtlas.INSTANCE.get(fabric) != null)
+						return compositeModel;
+					return getSubModel(fabric.getPattern(), fabric.getPatternId());
 				}
 				else {
 					return Minecraft.getInstance().getModelManager().getMissingModel();
@@ -136,6 +169,25 @@ public final class FabricItemModel implements IModelGeometry<FabricItemModel> {
 		}
 	}
 
+	/**
+	 * Used for every fabric when compositing is enabled.
+	 * It has no quads of its own, and tells the game to draw the item using its
+	 * FabricItemRenderer instead.
+	 */
+	private static class CompositeModel extends BakedItemModel {
+
+		public CompositeModel(ImmutableMap<TransformType, TransformationMatrix> transforms, boolean untransformed,
+				boolean isSideLit) {
+			super(ImmutableList.of(), null, transforms, ItemOverrideList.EMPTY, untransformed, isSideLit);
+		}
+
+		@Override
+		public boolean isBuiltInRenderer() {
+			return true;
+		}
+
+	}
+
 	public class SubModel extends TemplateItemModel {
 
 		private FabricPattern pattern;
@@ -162,10 +214,32 @@ public final class FabricItemModel implements IModelGeometry<FabricItemModel> {
 
 	}
 
-	// A map between fabric patterns and baked models to use when overriding items'
-	// models
-	private Map<FabricPattern, IBakedModel> bakedSubModels;
-	private Collection<SubModel> subModels;
+	// The baked submodels, indexed by the numeric registry ID of their pattern
+	// Looking models up by ID means the override handler doesn't have to hash anything
+	// When baking lazily, models which aren't baked yet or were evicted are null, and
+	// the baked models are guarded by the lock, since the baking threads store them
+	private IBakedModel[] bakedSubModels;
+	// The unbaked submodels, indexed the same way
+	private SubModel[] subModels;
+	// Whether each pattern has been needed by this model
+	private boolean[] usedPatterns;
+	// Only used when baking lazily
+	// Bakes a submodel, with everything it needs to bake already captured
+	private Function<SubModel, IBakedModel> lazyBaker;
+	// Everything below is guarded by the lock
+	// Models are evicted using the clock algorithm. A model which was used since the
+	// clock hand last passed it gets a second chance.
+	private boolean[] recentlyUsed;
+	// Whether each model has been submitted for baking and isn't stored yet, so each
+	// model is only baked once at a time
+	private boolean[] baking;
+	// When submodels whose bake failed may be tried again, so they aren't retried every frame
+	private final Map<SubModel, Long> retryTimes = new HashMap<>();
+	private int loadedCount, clockHand, lazyCapacity;
+	// Only used when compositing
+	private IBakedModel compositeModel;
+	// The textures used by all submodels, so their sprites can be looked up before baking
+	private Set<Material> textures;
 	private Material templateTexture, detailTexture;
 
 	public FabricItemModel() {
@@ -177,8 +251,26 @@ public final class FabricItemModel implements IModelGeometry<FabricItemModel> {
 	public IBakedModel bake(IModelConfiguration owner, ModelBakery bakery,
 			Function<Material, TextureAtlasSprite> spriteGetter, IModelTransform modelTransform,
 			ItemOverrideList overrides, ResourceLocation modelLocation) {
-		// Bake all of our submodels
-		bakeSubmodels(owner, bakery, spriteGetter, modelTransform, overrides, modelLocation);
+		// Keep the quad cache from growing without limit before adding to it
+		if (ClientConfig.INSTANCE.quadDiskCache.get())
+			QuadCache.prune(ClientConfig.INSTANCE.quadDiskCacheSize.get() * 1024L * 1024L);
+		// Bake all of our submodels, or prepare to bake them later
+		if (ClientConfig.INSTANCE.compositeFabricItems.get()) {
+			FabricAtlas.INSTANCE.reset(getTemplateTexture(owner), getDetailTexture(owner));
+			compositeModel = new CompositeModel(
+					Maps.immutableEnumMap(TemplateItemModel.getTransforms(owner, modelTransform)),
+					modelTransform.getRotation().isIdentity(), owner.isSideLit());
+			// Submodels are only needed when the atlas is full, so only bake them then
+			prepareLazySubmodels(owner, bakery, spriteGetter, modelTransform, overrides, modelLocation, false);
+		}
+		else {
+			// Stop using the fabric atlas, in case compositing was just turned off
+			FabricAtlas.INSTANCE.reset(null, null);
+			if (ClientConfig.INSTANCE.lazyFabricModels.get())
+				prepareLazySubmodels(owner, bakery, spriteGetter, modelTransform, overrides, modelLocation, true);
+			else
+				bakeSubmodels(owner, bakery, spriteGetter, modelTransform, overrides, modelLocation);
+		}
 		// Construct the baked model
 		// Make sure to give it our custom override handler so it can switch models
 		return createDummyItemModel(new OverrideHandler());
@@ -190,8 +282,10 @@ public final class FabricItemModel implements IModelGeometry<FabricItemModel> {
 		// Get the textures used by each submodel and combine them into one set
 		Set<Material> textures = new HashSet<>();
 		for (SubModel subModel : subModels) {
-			textures.addAll(subModel.getTextures(owner, modelGetter, missingTextureErrors));
+			if (subModel != null)
+				textures.addAll(subModel.getTextures(owner, modelGetter, missingTextureErrors));
 		}
+		this.textures = ImmutableSet.copyOf(textures);
 		return textures;
 	}
 
@@ -200,22 +294,243 @@ public final class FabricItemModel implements IModelGeometry<FabricItemModel> {
 	 * involves creating a submodel for every fabric pattern.
 	 */
 	private void createSubModels() {
-		subModels = new LinkedList<>();
+		// Registry IDs are small and dense, so the arrays stay small
+		int size = PATTERN_REGISTRY.getValues().stream().mapToInt(PATTERN_REGISTRY::getID).max().orElse(-1) + 1;
+		subModels = new SubModel[size];
 		for (FabricPattern pattern : PATTERN_REGISTRY.getValues()) {
-			subModels.add(new SubModel(pattern));
+			subModels[PATTERN_REGISTRY.getID(pattern)] = new SubModel(pattern);
 		}
+		bakedSubModels = new IBakedModel[size];
+		usedPatterns = new boolean[size];
 	}
 
 	/**
 	 * Bakes the fabric item's submodels, putting the baked models into a cache.
+	 * The submodels are baked in parallel on the common fork-join pool.
 	 */
 	private void bakeSubmodels(IModelConfiguration owner, ModelBakery bakery,
 			Function<Material, TextureAtlasSprite> spriteGetter, IModelTransform modelTransform,
 			ItemOverrideList overrides, ResourceLocation modelLocation) {
-		bakedSubModels = new HashMap<>();
+		Map<Material, TextureAtlasSprite> sprites = lookupSprites(spriteGetter);
+		// Each submodel produces its quads independently of the others, and writes
+		// its model into its own slot, so the result doesn't depend on which
+		// submodel finishes first
+		IntStream.range(0, subModels.length).parallel()
+				.filter((id) -> subModels[id] != null)
+				.forEach((id) -> bakedSubModels[id] = subModels[id].bake(owner, bakery, sprites::get, modelTransform,
+						overrides, modelLocation));
+	}
+
+	/**
+	 * Prepares to bake submodels the first time they are needed, and optionally
+	 * starts baking the most used patterns in the background.
+	 */
+	private void prepareLazySubmodels(IModelConfiguration owner, ModelBakery bakery,
+			Function<Material, TextureAtlasSprite> spriteGetter, IModelTransform modelTransform,
+			ItemOverrideList overrides, ResourceLocation modelLocation, boolean prewarm) {
+		// The sprites have to be looked up now, since the sprite getter is only valid while baking
+		Map<Material, TextureAtlasSprite> sprites = lookupSprites(spriteGetter);
+		lazyBaker = (subModel) -> subModel.bake(owner, bakery, sprites::get, modelTransform, overrides,
+				modelLocation);
+		lazyCapacity = ClientConfig.INSTANCE.fabricModelCacheSize.get();
+		recentlyUsed = new boolean[subModels.length];
+		baking = new boolean[subModels.length];
+		if (!prewarm)
+			return;
+		// Pick the patterns which were used the most, falling back to registry order
+		// Sorting is stable, so patterns which were never used stay in registry order
+		int prewarmCount = Math.min(ClientConfig.INSTANCE.prewarmedFabricModels.get(), lazyCapacity);
+		List<Integer> prewarmed = IntStream.range(0, subModels.length)
+				.filter((id) -> subModels[id] != null)
+				.boxed()
+				.sorted(Comparator.comparingInt((Integer id) -> PATTERN_USES.count(subModels[id].pattern)).reversed())
+				.limit(prewarmCount)
+				.collect(ImmutableList.toImmutableList());
+		LOGGER.info("Pre-warming {} fabric pattern models", prewarmed.size());
+		prewarmed.forEach(this::requestBake);
+	}
+
+	/**
+	 * Looks up the sprites of all the submodels' textures.
+	 * This is done on the baking thread, since the bakery's sprite getter isn't
+	 * meant to be used from other threads.
+	 */
+	private Map<Material, TextureAtlasSprite> lookupSprites(Function<Material, TextureAtlasSprite> spriteGetter) {
+		return textures.stream().collect(ImmutableMap.toImmutableMap(Function.identity(), spriteGetter));
+	}
+
+	/**
+	 * Returns the baked submodel of a pattern.
+	 * If we are baking lazily and the model isn't baked yet, the missing model is
+	 * returned until it has been baked in the background.
+	 * If the submodel under the ID belongs to a different pattern, the IDs must
+	 * have been remapped (like when joining a server), so the submodels are
+	 * indexed again.
+	 * 
+	 * @param pattern The pattern
+	 * @param id      The pattern's numeric registry ID
+	 */
+	private IBakedModel getSubModel(FabricPattern pattern, int id) {
+		if (!matches(pattern, id)) {
+			// The ID may have been taken before a remap, so look up the current one
+			id = PATTERN_REGISTRY.getID(pattern);
+			if (!matches(pattern, id)) {
+				reindexSubModels();
+				// Patterns registered after the model was created have no submodel
+				if (!matches(pattern, id))
+					return Minecraft.getInstance().getModelManager().getMissingModel();
+			}
+		}
+		// Remember that the pattern was used, so it can be pre-warmed after the next reload
+		if (!usedPatterns[id]) {
+			usedPatterns[id] = true;
+			PATTERN_USES.add(subModels[id].pattern);
+		}
+		// Without lazy baking, every model was baked before this model was handed out
+		if (lazyBaker == null)
+			return bakedSubModels[id];
+		synchronized (this) {
+			IBakedModel model = bakedSubModels[id];
+			if (model != null) {
+				recentlyUsed[id] = true;
+				return model;
+			}
+		}
+		// Baking can take a while, so don't make the render thread wait for it
+		requestBake(id);
+		return Minecraft.getInstance().getModelManager().getMissingModel();
+	}
+
+	private boolean matches(FabricPattern pattern, int id) {
+		return id >= 0 && id < subModels.length && subModels[id] != null && subModels[id].pattern == pattern;
+	}
+
+	/**
+	 * Finds where a submodel is currently stored, or returns -1 if it was dropped.
+	 * Must hold the lock.
+	 */
+	private int indexOf(SubModel subModel) {
+		// The submodel is usually under its pattern's ID, unless the IDs were remapped
+		// and the submodels haven't been indexed again yet
+		int id = PATTERN_REGISTRY.getID(subModel.pattern);
+		if (id >= 0 && id < subModels.length && subModels[id] == subModel)
+			return id;
+		for (id = 0; id < subModels.length; id++) {
+			if (subModels[id] == subModel)
+				return id;
+		}
+		return -1;
+	}
+
+	/**
+	 * Moves every submodel, along with its baked model, to the current registry ID
+	 * of its pattern. Submodels of patterns which aren't registered anymore are
+	 * dropped.
+	 */
+	private synchronized void reindexSubModels() {
+		int size = 0;
 		for (SubModel subModel : subModels) {
-			bakedSubModels.put(subModel.pattern,
-					subModel.bake(owner, bakery, spriteGetter, modelTransform, overrides, modelLocation));
+			if (subModel != null)
+				size = Math.max(size, PATTERN_REGISTRY.getID(subModel.pattern) + 1);
+		}
+		SubModel[] newSubModels = new SubModel[size];
+		IBakedModel[] newBakedSubModels = new IBakedModel[size];
+		boolean[] newUsedPatterns = new boolean[size], newRecentlyUsed = new boolean[size],
+				newBaking = new boolean[size];
+		loadedCount = 0;
+		for (int oldId = 0; oldId < subModels.length; oldId++) {
+			if (subModels[oldId] == null)
+				continue;
+			int id = PATTERN_REGISTRY.getID(subModels[oldId].pattern);
+			if (id < 0)
+				continue;
+			newSubModels[id] = subModels[oldId];
+			newBakedSubModels[id] = bakedSubModels[oldId];
+			newUsedPatterns[id] = usedPatterns[oldId];
+			if (lazyBaker != null) {
+				newRecentlyUsed[id] = recentlyUsed[oldId];
+				newBaking[id] = baking[oldId];
+				if (newBakedSubModels[id] != null)
+					loadedCount++;
+			}
+		}
+		subModels = newSubModels;
+		usedPatterns = newUsedPatterns;
+		if (lazyBaker != null) {
+			recentlyUsed = newRecentlyUsed;
+			baking = newBaking;
+			clockHand = 0;
+		}
+		bakedSubModels = newBakedSubModels;
+	}
+
+	/**
+	 * Starts baking a submodel in the background, unless it is already baked or
+	 * being baked.
+	 */
+	private void requestBake(int id) {
+		SubModel subModel;
+		synchronized (this) {
+			if (baking[id] || bakedSubModels[id] != null)
+				return;
+			subModel = subModels[id];
+			Long retryTime = retryTimes.get(subModel);
+			if (retryTime != null && System.currentTimeMillis() < retryTime)
+				return;
+			baking[id] = true;
+		}
+		CompletableFuture.runAsync(() -> bakeLazily(subModel)).exceptionally((e) -> {
+			LOGGER.error("Failed to bake fabric pattern model for {}, trying again in {} seconds",
+					subModel.pattern.getRegistryName(), RETRY_DELAY / 1000, e);
+			synchronized (this) {
+				retryTimes.put(subModel, System.currentTimeMillis() + RETRY_DELAY);
+				int current = indexOf(subModel);
+				if (current >= 0)
+					baking[current] = false;
+			}
+			return null;
+		});
+	}
+
+	/**
+	 * Bakes a submodel and stores it, evicting another model if there are too many.
+	 */
+	private void bakeLazily(SubModel subModel) {
+		// Bake outside of the lock, so several models can be baked at once
+		IBakedModel model = lazyBaker.apply(subModel);
+		synchronized (this) {
+			// The submodels may have been indexed again while baking
+			int id = indexOf(subModel);
+			if (id < 0)
+				return;
+			if (loadedCount >= lazyCapacity)
+				evictSubModel();
+			else
+				loadedCount++;
+			bakedSubModels[id] = model;
+			recentlyUsed[id] = true;
+			baking[id] = false;
+			retryTimes.remove(subModel);
+		}
+	}
+
+	/**
+	 * Evicts one baked submodel using the clock algorithm.
+	 * Must hold the lock.
+	 */
+	private void evictSubModel() {
+		// There is at least one loaded model, so this takes at most two sweeps
+		while (true) {
+			int id = clockHand;
+			clockHand = (clockHand + 1) % bakedSubModels.length;
+			if (bakedSubModels[id] == null)
+				continue;
+			if (recentlyUsed[id]) {
+				recentlyUsed[id] = false;
+			} else {
+				bakedSubModels[id] = null;
+				return;
+			}
 		}
 	}
 
@@ -0,0 +1,330 @@
+package spinyq.spinytextiles.client.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import javax.annotation.Nullable;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+import net.minecraft.client.renderer.TransformationMatrix;
+import net.minecraft.client.renderer.Vector4f;
+import net.minecraft.client.renderer.model.BakedQuad;
+import net.minecraft.client.renderer.texture.TextureAtlasSprite;
+import net.minecraft.client.renderer.vertex.DefaultVertexFormats;
+import net.minecraft.client.renderer.vertex.VertexFormat;
+import net.minecraft.client.renderer.vertex.VertexFormatElement;
+import net.minecraft.util.Direction;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.api.distmarker.OnlyIn;
+import net.minecraftforge.fml.loading.FMLPaths;
+import spinyq.spinytextiles.TextileMod;
+
+/**
+ * Stores generated item quads on disk, so they don't have to be generated again
+ * on the next launch or resource reload.
+ * Entries are content-addressed: the key is a hash of everything the quads were
+ * generated from, so an entry never has to be invalidated, only left unused.
+ * Reading an entry updates its modification time, so once the cache grows past
+ * its size limit, the entries which were used least recently are deleted first.
+ * UVs are stored relative to the sprite, since the sprite's place in the atlas
+ * can change between launches.
+ * Every entry ends with a checksum. Entries which are damaged are deleted and
+ * generated again.
+ * @author SpinyQ
+ *
+ */
+@OnlyIn(Dist.CLIENT)
+public final class QuadCache {
+
+	private static final Logger LOGGER = LogManager.getLogger();
+
+	// Change this whenever the same inputs start producing different quads
+	private static final int VERSION = 2;
+	private static final int MAGIC = 0x53545143;
+	private static final int HEADER_SIZE = 4, QUAD_HEADER_SIZE = 2;
+	// Temporary files this old were left behind by a write that never finished
+	private static final long STALE_TEMP_AGE = TimeUnit.HOURS.toMillis(1);
+
+	private static final Path DIRECTORY = FMLPaths.GAMEDIR.get().resolve(TextileMod.MODID).resolve("quadcache");
+
+	// The quads are built by BakedQuadBuilder, which uses the block format
+	private static final VertexFormat FORMAT = DefaultVertexFormats.BLOCK;
+	private static final int VERTEX_SIZE = FORMAT.getIntegerSize(), QUAD_SIZE = VERTEX_SIZE * 4,
+			UV_OFFSET = findUVOffset(FORMAT);
+
+	private QuadCache() {
+	}
+
+	private static int findUVOffset(VertexFormat format) {
+		int offset = 0;
+		for (VertexFormatElement element : format.getElements()) {
+			if (element.getUsage() == VertexFormatElement.Usage.UV && element.getIndex() == 0)
+				return offset / 4;
+			offset += element.getSize();
+		}
+		throw new IllegalStateException("Vertex format has no texture coordinates: " + format);
+	}
+
+	/**
+	 * Creates a hasher for a key, already containing the cache version and vertex
+	 * format.
+	 */
+	public static Hasher newKey() {
+		return Hashing.sha256().newHasher().putInt(VERSION).putInt(VERTEX_SIZE).putInt(UV_OFFSET);
+	}
+
+	/**
+	 * Adds a transform to a key.
+	 * The transform is affine, so transforming the origin and the three unit vectors
+	 * is enough to tell it apart.
+	 */
+	public static Hasher putTransform(Hasher key, TransformationMatrix transform) {
+		float[][] points = { { 0f, 0f, 0f }, { 1f, 0f, 0f }, { 0f, 1f, 0f }, { 0f, 0f, 1f } };
+		for (float[] point : points) {
+			Vector4f vector = new Vector4f(point[0], point[1], point[2], 1f);
+			vector.transform(transform.getMatrix());
+			key.putFloat(vector.getX()).putFloat(vector.getY()).putFloat(vector.getZ()).putFloat(vector.getW());
+		}
+		return key;
+	}
+
+	private static Path getPath(HashCode key) {
+		return DIRECTORY.resolve(key.toString() + ".bin");
+	}
+
+	/**
+	 * Reads the quads stored under a key, or returns null if there are none.
+	 *
+	 * @param sprite The sprite the quads use
+	 */
+	@Nullable
+	public static List<BakedQuad> read(HashCode key, TextureAtlasSprite sprite) {
+		Path path = getPath(key);
+		ImmutableList<BakedQuad> quads;
+		try {
+			// Entries are small, so read them onto the heap instead of mapping them
+			// A mapped file can't be deleted on Windows until the mapping is collected
+			quads = decode(ByteBuffer.wrap(Files.readAllBytes(path)), sprite);
+		} catch (NoSuchFileException e) {
+			return null;
+		} catch (IOException e) {
+			LOGGER.warn("Failed to read cached quads from {}", path, e);
+			return null;
+		}
+		if (quads == null) {
+			// The entry is damaged, so get rid of it
+			LOGGER.warn("Deleting damaged cached quads at {}", path);
+			delete(path);
+		} else {
+			// Mark the entry as used, so it is kept when the cache is pruned
+			try {
+				Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+			} catch (IOException e) {
+				// The entry is still usable, it is just more likely to be pruned
+			}
+		}
+		return quads;
+	}
+
+	/**
+	 * Deletes the least recently used entries until the cache takes up at most a
+	 * number of bytes, along with any temporary files left behind by unfinished
+	 * writes.
+	 *
+	 * @param maxSize The most bytes the cache may take up
+	 */
+	public static void prune(long maxSize) {
+		if (!Files.isDirectory(DIRECTORY))
+			return;
+		// Collect the entries along with their sizes and modification times
+		List<Entry> entries = new ArrayList<>();
+		long totalSize = 0, now = System.currentTimeMillis();
+		try (Stream<Path> files = Files.list(DIRECTORY)) {
+			for (Path path : (Iterable<Path>) files::iterator) {
+				BasicFileAttributes attributes;
+				try {
+					attributes = Files.readAttributes(path, BasicFileAttributes.class);
+				} catch (NoSuchFileException e) {
+					continue;
+				}
+				long modified = attributes.lastModifiedTime().toMillis();
+				String name = path.getFileName().toString();
+				if (name.endsWith(".tmp")) {
+					if (now - modified > STALE_TEMP_AGE)
+						delete(path);
+				} else if (name.endsWith(".bin")) {
+					entries.add(new Entry(path, attributes.size(), modified));
+					totalSize += attributes.size();
+				}
+			}
+		} catch (IOException e) {
+			LOGGER.warn("Failed to list cached quads in {}", DIRECTORY, e);
+			return;
+		}
+		if (totalSize <= maxSize)
+			return;
+		// Delete the oldest entries first
+		entries.sort(Comparator.comparingLong((Entry entry) -> entry.modified));
+		int deleted = 0;
+		for (Entry entry : entries) {
+			if (totalSize <= maxSize)
+				break;
+			if (delete(entry.path)) {
+				totalSize -= entry.size;
+				deleted++;
+			}
+		}
+		LOGGER.info("Pruned {} cached quad entries, leaving {} bytes", deleted, totalSize);
+	}
+
+	private static boolean delete(Path path) {
+		try {
+			Files.deleteIfExists(path);
+			return true;
+		} catch (IOException e) {
+			LOGGER.warn("Failed to delete {}", path, e);
+			return false;
+		}
+	}
+
+	private static final class Entry {
+
+		private final Path path;
+		private final long size, modified;
+
+		private Entry(Path path, long size, long modified) {
+			this.path = path;
+			this.size = size;
+			this.modified = modified;
+		}
+
+	}
+
+	/**
+	 * Stores quads under a key. The entry is written to a temporary file first, so
+	 * other readers never see a half-written entry.
+	 *
+	 * @param sprite The sprite the quads use
+	 */
+	public static void write(HashCode key, TextureAtlasSprite sprite, List<BakedQuad> quads) {
+		Path path = getPath(key), temp = null;
+		try {
+			Files.createDirectories(DIRECTORY);
+			temp = Files.createTempFile(DIRECTORY, "quads", ".tmp");
+			Files.write(temp, encode(quads, sprite).array());
+			try {
+				Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} catch (IOException e) {
+			LOGGER.warn("Failed to write cached quads to {}", path, e);
+			if (temp != null) {
+				try {
+					Files.deleteIfExists(temp);
+				} catch (IOException e1) {
+					// Nothing else we can do
+				}
+			}
+		}
+	}
+
+	private static ByteBuffer encode(List<BakedQuad> quads, TextureAtlasSprite sprite) {
+		ByteBuffer buffer = ByteBuffer.allocate(
+				(HEADER_SIZE + quads.size() * (QUAD_HEADER_SIZE + QUAD_SIZE)) * 4 + 4);
+		IntBuffer ints = buffer.asIntBuffer();
+		ints.put(MAGIC).put(VERSION).put(VERTEX_SIZE).put(quads.size());
+		for (BakedQuad quad : quads) {
+			ints.put(quad.getTintIndex()).put(quad.getFace().getIndex());
+			int[] data = quad.getVertexData().clone();
+			for (int v = 0; v < 4; v++) {
+				int uv = v * VERTEX_SIZE + UV_OFFSET;
+				data[uv] = Float.floatToRawIntBits(getRelativeU(sprite, Float.intBitsToFloat(data[uv])));
+				data[uv + 1] = Float.floatToRawIntBits(getRelativeV(sprite, Float.intBitsToFloat(data[uv + 1])));
+			}
+			ints.put(data);
+		}
+		// Finish with a checksum of everything before it
+		CRC32 crc = new CRC32();
+		crc.update(buffer.array(), 0, buffer.capacity() - 4);
+		ints.put((int) crc.getValue());
+		return buffer;
+	}
+
+	/**
+	 * Decodes an entry, or returns null if it is damaged.
+	 */
+	@Nullable
+	private static ImmutableList<BakedQuad> decode(ByteBuffer buffer, TextureAtlasSprite sprite) {
+		int size = buffer.remaining();
+		if (size < HEADER_SIZE * 4 + 4 || size % 4 != 0)
+			return null;
+		// Check the checksum first
+		CRC32 crc = new CRC32();
+		ByteBuffer contents = buffer.duplicate();
+		contents.limit(size - 4);
+		crc.update(contents);
+		IntBuffer ints = buffer.asIntBuffer();
+		if ((int) crc.getValue() != ints.get(size / 4 - 1))
+			return null;
+		// Then the header
+		if (ints.get() != MAGIC || ints.get() != VERSION || ints.get() != VERTEX_SIZE)
+			return null;
+		int count = ints.get();
+		if (count < 0 || count > size / 4 || size / 4 != HEADER_SIZE + count * (QUAD_HEADER_SIZE + QUAD_SIZE) + 1)
+			return null;
+		ImmutableList.Builder<BakedQuad> quads = ImmutableList.builder();
+		for (int q = 0; q < count; q++) {
+			int tint = ints.get(), face = ints.get();
+			if (face < 0 || face >= Direction.values().length)
+				return null;
+			int[] data = new int[QUAD_SIZE];
+			ints.get(data);
+			for (int v = 0; v < 4; v++) {
+				int uv = v * VERTEX_SIZE + UV_OFFSET;
+				data[uv] = Float.floatToRawIntBits(getAbsoluteU(sprite, Float.intBitsToFloat(data[uv])));
+				data[uv + 1] = Float.floatToRawIntBits(getAbsoluteV(sprite, Float.intBitsToFloat(data[uv + 1])));
+			}
+			quads.add(new BakedQuad(data, tint, Direction.byIndex(face), sprite, true));
+		}
+		return quads.build();
+	}
+
+	private static float getRelativeU(TextureAtlasSprite sprite, float u) {
+		return (u - sprite.getMinU()) / (sprite.getMaxU() - sprite.getMinU());
+	}
+
+	private static float getRelativeV(TextureAtlasSprite sprite, float v) {
+		return (v - sprite.getMinV()) / (sprite.getMaxV() - sprite.getMinV());
+	}
+
+	private static float getAbsoluteU(TextureAtlasSprite sprite, float u) {
+		return sprite.getMinU() + u * (sprite.getMaxU() - sprite.getMinU());
+	}
+
+	private static float getAbsoluteV(TextureAtlasSprite sprite, float v) {
+		return sprite.getMinV() + v * (sprite.getMaxV() - sprite.getMinV());
+	}
+
+}
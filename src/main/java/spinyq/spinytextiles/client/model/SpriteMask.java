@@ -0,0 +1,279 @@
+package spinyq.spinytextiles.client.model;
+
+import java.util.function.IntBinaryOperator;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Funnel;
+
+import net.minecraft.client.renderer.texture.TextureAtlasSprite;
+import net.minecraft.util.Direction;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.api.distmarker.OnlyIn;
+
+/**
+ * Marks which pixels of a sprite are visible, packed into bits.
+ * Each row (and each column) is stored as an array of longs, so comparing or
+ * combining whole rows only takes a few word operations instead of a pixel lookup
+ * for every pixel.
+ * Masks are immutable. The masks of a sprite's frames are cached, so every model
+ * using the same sprite shares them.
+ * Besides the usual "visible" masks, sprites also have "opaque" masks, which only
+ * contain fully opaque pixels. These are used to find what a sprite hides.
+ * @author SpinyQ
+ *
+ */
+@OnlyIn(Dist.CLIENT)
+public final class SpriteMask {
+
+	// Pixels need an alpha above 10% to be visible
+	private static final int VISIBLE_THRESHOLD = 25, OPAQUE_THRESHOLD = 254;
+
+	// Sprites are replaced on every resource reload, so weak keys let old masks be collected
+	private static final Cache<TextureAtlasSprite, SpriteMask[]> VISIBLE_CACHE = CacheBuilder.newBuilder().weakKeys().build();
+	private static final Cache<TextureAtlasSprite, SpriteMask[]> OPAQUE_CACHE = CacheBuilder.newBuilder().weakKeys().build();
+
+	// Feeds a mask into a hash, for keying things generated from masks
+	public static final Funnel<SpriteMask> FUNNEL = (mask, into) -> {
+		into.putInt(mask.width).putInt(mask.height);
+		for (long word : mask.rows) {
+			into.putLong(word);
+		}
+	};
+
+	private final int width, height;
+	// Number of words in each row and each column
+	private final int rowWords, columnWords;
+	// Bit u of row v is stored in rows[v * rowWords + u / 64], at position u % 64
+	// Columns are stored the same way, with u and v swapped
+	// Bits past the end of a row or column are always zero
+	private final long[] rows, columns;
+
+	private SpriteMask(int width, int height, long[] rows) {
+		this.width = width;
+		this.height = height;
+		this.rowWords = words(width);
+		this.columnWords = words(height);
+		this.rows = rows;
+		// Build the columns by transposing the rows
+		this.columns = new long[width * columnWords];
+		for (int v = 0; v < height; v++) {
+			for (int u = 0; u < width; u++) {
+				if (getBit(rows, v * rowWords, u))
+					columns[u * columnWords + (v >>> 6)] |= 1L << v;
+			}
+		}
+	}
+
+	private static int words(int bits) {
+		return (bits + 63) >>> 6;
+	}
+
+	private static boolean getBit(long[] words, int offset, int index) {
+		return (words[offset + (index >>> 6)] & (1L << index)) != 0;
+	}
+
+	// The bits of the last word in each row that are inside the mask
+	private long lastWordMask() {
+		return ((width & 63) == 0) ? -1L : (1L << width) - 1;
+	}
+
+	/**
+	 * Returns the mask of the visible pixels in a frame of a sprite.
+	 */
+	public static SpriteMask of(TextureAtlasSprite sprite, int frame) {
+		return get(VISIBLE_CACHE, sprite, frame, VISIBLE_THRESHOLD);
+	}
+
+	/**
+	 * Returns the mask of the fully opaque pixels in a frame of a sprite.
+	 */
+	public static SpriteMask opaqueOf(TextureAtlasSprite sprite, int frame) {
+		return get(OPAQUE_CACHE, sprite, frame, OPAQUE_THRESHOLD);
+	}
+
+	private static SpriteMask get(Cache<TextureAtlasSprite, SpriteMask[]> cache, TextureAtlasSprite sprite, int frame,
+			int threshold) {
+		SpriteMask[] frames = cache.getIfPresent(sprite);
+		if (frames == null) {
+			frames = new SpriteMask[sprite.getFrameCount()];
+			for (int f = 0; f < frames.length; f++) {
+				frames[f] = create(sprite, f, threshold);
+			}
+			cache.put(sprite, frames);
+		}
+		return frames[frame];
+	}
+
+	private static SpriteMask create(TextureAtlasSprite sprite, int frame, int threshold) {
+		return create(sprite.getWidth(), sprite.getHeight(), (u, v) -> sprite.getPixelRGBA(frame, u, v), threshold);
+	}
+
+	private static SpriteMask create(int width, int height, IntBinaryOperator pixels, int threshold) {
+		int rowWords = words(width);
+		long[] rows = new long[height * rowWords];
+		for (int v = 0; v < height; v++) {
+			for (int u = 0; u < width; u++) {
+				if ((pixels.applyAsInt(u, v) >> 24 & 255) > threshold)
+					rows[v * rowWords + (u >>> 6)] |= 1L << u;
+			}
+		}
+		return new SpriteMask(width, height, rows);
+	}
+
+	/**
+	 * Returns the mask of the visible pixels in an image, which isn't cached.
+	 * Lets masks be made without a texture atlas.
+	 * @param pixels The pixels of the image, row by row, in the same format as getPixelRGBA
+	 */
+	static SpriteMask of(int width, int height, int[] pixels) {
+		return create(width, height, (u, v) -> pixels[v * width + u], VISIBLE_THRESHOLD);
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	public boolean isSameSize(SpriteMask other) {
+		return width == other.width && height == other.height;
+	}
+
+	/**
+	 * Whether a pixel is visible. Pixels outside of the mask are not visible.
+	 */
+	public boolean isVisible(int u, int v) {
+		if (u < 0 || u >= width || v < 0 || v >= height)
+			return false;
+		return getBit(rows, v * rowWords, u);
+	}
+
+	/**
+	 * Whether two rows have exactly the same visible pixels.
+	 */
+	public boolean rowEquals(int v0, int v1) {
+		int offset0 = v0 * rowWords, offset1 = v1 * rowWords;
+		for (int w = 0; w < rowWords; w++) {
+			if (rows[offset0 + w] != rows[offset1 + w])
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Whether two columns have exactly the same visible pixels.
+	 */
+	public boolean columnEquals(int u0, int u1) {
+		int offset0 = u0 * columnWords, offset1 = u1 * columnWords;
+		for (int w = 0; w < columnWords; w++) {
+			if (columns[offset0 + w] != columns[offset1 + w])
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Returns a mask with the same size as this one, where a pixel is only visible if
+	 * it is visible in both this mask and the other mask.
+	 */
+	public SpriteMask intersect(SpriteMask other) {
+		long[] result = new long[rows.length];
+		int words = Math.min(rowWords, other.rowWords);
+		for (int v = 0; v < Math.min(height, other.height); v++) {
+			for (int w = 0; w < words; w++) {
+				result[v * rowWords + w] = rows[v * rowWords + w] & other.rows[v * other.rowWords + w];
+			}
+		}
+		return new SpriteMask(width, height, result);
+	}
+
+	/**
+	 * Returns a mask where a pixel is visible if it is visible in either mask.
+	 * Both masks must be the same size.
+	 */
+	public SpriteMask union(SpriteMask other) {
+		long[] result = new long[rows.length];
+		for (int i = 0; i < rows.length; i++) {
+			result[i] = rows[i] | other.rows[i];
+		}
+		return new SpriteMask(width, height, result);
+	}
+
+	/**
+	 * Returns a mask where a pixel is visible if it is visible in this mask but not
+	 * in the other. Both masks must be the same size.
+	 */
+	public SpriteMask subtract(SpriteMask other) {
+		long[] result = new long[rows.length];
+		for (int i = 0; i < rows.length; i++) {
+			result[i] = rows[i] & ~other.rows[i];
+		}
+		return new SpriteMask(width, height, result);
+	}
+
+	/**
+	 * Returns a mask where visible pixels are invisible and vice versa.
+	 */
+	public SpriteMask invert() {
+		long[] result = new long[rows.length];
+		// Keep the bits past the end of each row zero
+		long lastWord = lastWordMask();
+		for (int v = 0; v < height; v++) {
+			for (int w = 0; w < rowWords; w++) {
+				int i = v * rowWords + w;
+				result[i] = ~rows[i] & ((w == rowWords - 1) ? lastWord : -1L);
+			}
+		}
+		return new SpriteMask(width, height, result);
+	}
+
+	/**
+	 * Returns a mask where each pixel takes the value of its neighbor in the given
+	 * direction. Neighbors outside of the mask are not visible.
+	 * UP is towards the top row of the sprite, and WEST is towards the first column.
+	 */
+	public SpriteMask getNeighbors(Direction facing) {
+		long[] result = new long[rows.length];
+		long lastWord = lastWordMask();
+		for (int v = 0; v < height; v++) {
+			int offset = v * rowWords;
+			for (int w = 0; w < rowWords; w++) {
+				long row = rows[offset + w];
+				switch (facing) {
+				case WEST:
+					// Shift the pixel to the left into each position
+					result[offset + w] = (row << 1) | ((w > 0) ? rows[offset + w - 1] >>> 63 : 0L);
+					// The last pixel is shifted past the end of the row
+					if (w == rowWords - 1)
+						result[offset + w] &= lastWord;
+					break;
+				case EAST:
+					// Shift the pixel to the right into each position
+					result[offset + w] = (row >>> 1) | ((w < rowWords - 1) ? rows[offset + w + 1] << 63 : 0L);
+					break;
+				case UP:
+					result[offset + w] = (v > 0) ? rows[offset - rowWords + w] : 0L;
+					break;
+				case DOWN:
+					result[offset + w] = (v < height - 1) ? rows[offset + rowWords + w] : 0L;
+					break;
+				default:
+					throw new IllegalArgumentException("can't handle z-oriented side");
+				}
+			}
+		}
+		return new SpriteMask(width, height, result);
+	}
+
+	/**
+	 * Returns a mask of the pixels that have a side facing the given direction.
+	 * A pixel has a side if it is visible and its neighbor in that direction isn't.
+	 */
+	public SpriteMask getSides(Direction facing) {
+		return subtract(getNeighbors(facing));
+	}
+
+}
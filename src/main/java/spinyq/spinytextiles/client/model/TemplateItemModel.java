@@ -1,7 +1,5 @@
 package spinyq.spinytextiles.client.model;
 
-import java.util.Arrays;
-import java.util.BitSet;
 import java.util.Collection;
 import java.util.EnumMap;
 import java.util.List;
@@ -11,6 +9,8 @@ import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
+import javax.annotation.Nullable;
+
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -18,6 +18,8 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
 import com.mojang.datafixers.util.Pair;
 
 import net.minecraft.client.renderer.TransformationMatrix;
@@ -44,6 +46,7 @@ import net.minecraftforge.client.model.geometry.IModelGeometry;
 import net.minecraftforge.client.model.pipeline.BakedQuadBuilder;
 import net.minecraftforge.client.model.pipeline.IVertexConsumer;
 import net.minecraftforge.client.model.pipeline.TRSRTransformer;
+import spinyq.spinytextiles.ClientConfig;
 
 /**
  * A layered item model, similar to ItemLayerModel, with the additional feature
@@ -57,11 +60,13 @@ import net.minecraftforge.client.model.pipeline.TRSRTransformer;
  * side quads upside down, which I changed. ItemCameraTransform type is
  * deprecated, but BakedItemModel uses it so we are forced to use it as well. Oh
  * well
+ * Quads that are hidden by the layers above them are skipped, unless skipping them
+ * would split the remaining quads into more quads. A pixel hides what is below it
+ * if both its texture and template are fully opaque.
  * 
  * @author SpinyQ
  *
  */
-//TODO Improvement: Skipping internal side quads would allow us to cut down on quads.
 //TODO Handle particle texture
 //TODO Rewrite this eventually
 @SuppressWarnings("deprecation")
@@ -72,6 +77,7 @@ public class TemplateItemModel implements IModelGeometry<TemplateItemModel> {
 
 	private static final Direction[] HORIZONTALS = { Direction.UP, Direction.DOWN };
 	private static final Direction[] VERTICALS = { Direction.WEST, Direction.EAST };
+	private static final Direction[] SIDES = { Direction.UP, Direction.DOWN, Direction.WEST, Direction.EAST };
 	private static final float NUDGE_INCREMENT = 0.0001f;
 
 	private List<TemplateLayer> layers;
@@ -101,33 +107,6 @@ public class TemplateItemModel implements IModelGeometry<TemplateItemModel> {
 
 	}
 
-	private static class FaceData {
-		private final EnumMap<Direction, BitSet> data = new EnumMap<>(Direction.class);
-	
-		private final int vMax;
-	
-		FaceData(int uMax, int vMax) {
-			this.vMax = vMax;
-	
-			data.put(Direction.WEST, new BitSet(uMax * vMax));
-			data.put(Direction.EAST, new BitSet(uMax * vMax));
-			data.put(Direction.UP, new BitSet(uMax * vMax));
-			data.put(Direction.DOWN, new BitSet(uMax * vMax));
-		}
-	
-		public void set(Direction facing, int u, int v) {
-			data.get(facing).set(getIndex(u, v));
-		}
-	
-		public boolean get(Direction facing, int u, int v) {
-			return data.get(facing).get(getIndex(u, v));
-		}
-	
-		private int getIndex(int u, int v) {
-			return v * vMax + u;
-		}
-	}
-
 	@Override
 	public IBakedModel bake(IModelConfiguration owner, ModelBakery bakery,
 			Function<Material, TextureAtlasSprite> spriteGetter, IModelTransform modelTransform,
@@ -135,20 +114,62 @@ public class TemplateItemModel implements IModelGeometry<TemplateItemModel> {
 		// Do some logging
 		LOGGER.info("Baking a template item model for layers: {}", layers);
 		// Get transforms
-		IModelTransform transformsFromModel = owner.getCombinedTransform();
-		ImmutableMap<TransformType, TransformationMatrix> transformMap = transformsFromModel != null
-				? PerspectiveMapWrapper
-						.getTransforms(new ModelTransformComposition(transformsFromModel, modelTransform))
-				: PerspectiveMapWrapper.getTransforms(modelTransform);
+		ImmutableMap<TransformType, TransformationMatrix> transformMap = getTransforms(owner, modelTransform);
 		TransformationMatrix transform = modelTransform.getRotation();
 
+		List<TemplateLayer> layers = getLayers(owner);
+		int numLayers = layers.size();
+		// Later layers are drawn on top of earlier ones
+		// Starting from the top, work out which pixels are covered by the layers above each layer
+		// Layers can only be compared pixel by pixel if they are the same size,
+		// so layers of a different size are left out
+		SpriteMask[] upperOpaque = new SpriteMask[numLayers], upperVisible = new SpriteMask[numLayers];
+		SpriteMask opaque = null, visible = null;
+		for (int i = numLayers - 1; i >= 0; i--) {
+			TemplateLayer layer = layers.get(i);
+			TextureAtlasSprite sprite = spriteGetter.apply(layer.texture),
+					templateSprite = spriteGetter.apply(layer.template);
+			SpriteMask layerVisible = getVisibleMask(sprite, templateSprite),
+					layerOpaque = getOpaqueMask(sprite, templateSprite);
+			if (layerOpaque == null)
+				continue;
+			if (opaque != null && opaque.isSameSize(layerOpaque)) {
+				upperOpaque[i] = opaque;
+				upperVisible[i] = visible;
+				opaque = opaque.union(layerOpaque);
+				visible = visible.union(layerVisible);
+			} else {
+				opaque = layerOpaque;
+				visible = layerVisible;
+			}
+		}
+
 		ImmutableList.Builder<BakedQuad> builder = new ImmutableList.Builder<>();
+		boolean useDiskCache = ClientConfig.INSTANCE.quadDiskCache.get();
 		float nudge = 0f;
-		for (TemplateLayer layer : getLayers(owner)) {
+		for (int i = 0; i < numLayers; i++) {
+			TemplateLayer layer = layers.get(i);
 			// Get the sprites
 			TextureAtlasSprite sprite = spriteGetter.apply(layer.texture),
 					templateSprite = spriteGetter.apply(layer.template);
-			generateQuads(layer.tint, nudge, sprite, templateSprite, transform, builder);
+			// Try to read the layer's quads from the disk cache first
+			// If they aren't there, generate them and save them for next time
+			HashCode key = null;
+			List<BakedQuad> layerQuads = null;
+			if (useDiskCache) {
+				key = getCacheKey(layer.tint, nudge, sprite, templateSprite, transform, upperOpaque[i],
+						upperVisible[i]);
+				layerQuads = QuadCache.read(key, sprite);
+			}
+			if (layerQuads == null) {
+				ImmutableList.Builder<BakedQuad> layerBuilder = new ImmutableList.Builder<>();
+				generateQuads(layer.tint, nudge, sprite, templateSprite, transform, layerBuilder, upperOpaque[i],
+						upperVisible[i]);
+				layerQuads = layerBuilder.build();
+				if (key != null)
+					QuadCache.write(key, sprite, layerQuads);
+			}
+			builder.addAll(layerQuads);
 			nudge += NUDGE_INCREMENT;
 		}
 
@@ -160,6 +181,18 @@ public class TemplateItemModel implements IModelGeometry<TemplateItemModel> {
 				owner.isSideLit());
 	}
 
+	/**
+	 * Returns the transforms of an item model for each perspective.
+	 */
+	public static ImmutableMap<TransformType, TransformationMatrix> getTransforms(IModelConfiguration owner,
+			IModelTransform modelTransform) {
+		IModelTransform transformsFromModel = owner.getCombinedTransform();
+		return transformsFromModel != null
+				? PerspectiveMapWrapper
+						.getTransforms(new ModelTransformComposition(transformsFromModel, modelTransform))
+				: PerspectiveMapWrapper.getTransforms(modelTransform);
+	}
+
 	@Override
 	public Collection<Material> getTextures(IModelConfiguration owner,
 			Function<ResourceLocation, IUnbakedModel> modelGetter, Set<Pair<String, String>> missingTextureErrors) {
@@ -180,8 +213,68 @@ public class TemplateItemModel implements IModelGeometry<TemplateItemModel> {
 		return layers;
 	}
 
+	/**
+	 * Hashes everything that generateQuads reads, so its output can be cached.
+	 * The quads only depend on which pixels are visible, not on their colors, so
+	 * the masks are hashed instead of the pixels themselves.
+	 */
+	private static HashCode getCacheKey(int tint, float nudge, TextureAtlasSprite sprite, TextureAtlasSprite template,
+			TransformationMatrix transform, @Nullable SpriteMask upperOpaque, @Nullable SpriteMask upperVisible) {
+		Hasher key = QuadCache.newKey().putInt(tint).putFloat(nudge).putInt(sprite.getFrameCount());
+		for (int f = 0; f < sprite.getFrameCount(); f++) {
+			key.putObject(SpriteMask.of(sprite, f), SpriteMask.FUNNEL);
+		}
+		key.putObject(SpriteMask.of(template, 0), SpriteMask.FUNNEL);
+		QuadCache.putTransform(key, transform);
+		key.putBoolean(upperOpaque != null);
+		if (upperOpaque != null) {
+			key.putObject(upperOpaque, SpriteMask.FUNNEL).putObject(upperVisible, SpriteMask.FUNNEL);
+		}
+		return key.hash();
+	}
+
+	/**
+	 * Returns the pixels that a layer's side quads are built from.
+	 * A pixel is visible if both the sprite and the template are visible in any frame.
+	 */
+	private static SpriteMask getVisibleMask(TextureAtlasSprite sprite, TextureAtlasSprite template) {
+		SpriteMask templateMask = SpriteMask.of(template, 0), result = null;
+		for (int f = 0; f < sprite.getFrameCount(); f++) {
+			SpriteMask mask = SpriteMask.of(sprite, f).intersect(templateMask);
+			result = (result == null) ? mask : result.union(mask);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the pixels that a layer fully hides, or null if the sprite and template
+	 * aren't the same size.
+	 * A pixel is hidden if the template is visible and the sprite is opaque in every frame.
+	 */
+	private static SpriteMask getOpaqueMask(TextureAtlasSprite sprite, TextureAtlasSprite template) {
+		SpriteMask result = SpriteMask.of(template, 0);
+		if (!result.isSameSize(SpriteMask.of(sprite, 0)))
+			return null;
+		for (int f = 0; f < sprite.getFrameCount(); f++) {
+			result = result.intersect(SpriteMask.opaqueOf(sprite, f));
+		}
+		return result;
+	}
+
 	public static void generateQuads(int tint, float nudge, TextureAtlasSprite sprite, TextureAtlasSprite template,
 			TransformationMatrix transform, ImmutableList.Builder<BakedQuad> builder) {
+		generateQuads(tint, nudge, sprite, template, transform, builder, null, null);
+	}
+
+	/**
+	 * Generates the quads of a layer.
+	 * 
+	 * @param upperOpaque  The pixels hidden by the layers above this one, or null
+	 * @param upperVisible The pixels visible in the layers above this one, or null
+	 */
+	public static void generateQuads(int tint, float nudge, TextureAtlasSprite sprite, TextureAtlasSprite template,
+			TransformationMatrix transform, ImmutableList.Builder<BakedQuad> builder, @Nullable SpriteMask upperOpaque,
+			@Nullable SpriteMask upperVisible) {
 
 		LOGGER.trace("Generating quads for sprite: {} with template: {} with nudge: {}", sprite, template, nudge);
 
@@ -190,90 +283,56 @@ public class TemplateItemModel implements IModelGeometry<TemplateItemModel> {
 
 		// FaceData contains info about the sides of the sprite.
 		// A "side" occurs when a transparent pixel borders an opaque pixel.
-		// For each of the four flat directions, FaceData contains a bit set
+		// For each of the four flat directions, FaceData contains a mask
 		// marking where the sprite has a side facing that direction.
-		// For example, if faceData.get(Direction.EAST, 5, 6) is true,
+		// For example, if faceData.get(Direction.EAST).isVisible(5, 6) is true,
 		// then the pixel at (5,6) has a side to the right.
-		FaceData faceData = new FaceData(uMax, vMax);
-
-		// This flag marks whether the sprite contains "translucent" pixels -
-		// pixels that are not fully transparent, but not fully opaque.
+		EnumMap<Direction, SpriteMask> faceData = new EnumMap<>(Direction.class);
 
 		LOGGER.trace("Scanning for edges...");
 
 		// The following section calculates the faceData for the sprite.
+		// A pixel is only opaque if both the sprite's pixel and the template's pixel
+		// are opaque. A pixel has a side if it has a side in any frame of the sprite.
+		SpriteMask templateMask = SpriteMask.of(template, 0);
 		for (int f = 0; f < sprite.getFrameCount(); f++) {
-			// These variables keep track of pixel transparency.
-			// ptu tracks whether the previous pixel is transparent,
-			// and ptv keeps track of the transparency of the previous row of pixels.
-			boolean ptu;
-			boolean[] ptv = new boolean[uMax];
-			Arrays.fill(ptv, true);
-			// Iterate over each pixel, reading each row from left-to-right starting with
-			// the top row.
-			for (int v = 0; v < vMax; v++) {
-				ptu = true;
-				for (int u = 0; u < uMax; u++) {
-					// In addition to checking if the sprite's pixel is transparent,
-					// we also check whether the template's pixel is transparent.
-					// If either of them is transparent, then the current pixel is transparent.
-					boolean t = !isVisible(sprite, f, u, v) || !isVisible(template, 0, u, v);
-
-					// If we've just moved from a transparent pixel to an opaque pixel,
-					// we've found a side facing to the left. (west)
-					if (ptu && !t) // left - transparent, right - opaque
-					{
-						faceData.set(Direction.WEST, u, v);
-					}
-					// Similarly, if we've moved from an opaque pixel to a transparent one,
-					// we've found a side facing to the right. (east)
-					if (!ptu && t) // left - opaque, right - transparent
-					{
-						faceData.set(Direction.EAST, u - 1, v);
-					}
-					// Next, check the pixel to the top of the current one.
-					// If its transparent and the current pixel is not, we've found
-					// a side facing upwards. Vice versa for a downwards facing side.
-					if (ptv[u] && !t) // up - transparent, down - opaque
-					{
-						faceData.set(Direction.UP, u, v);
-					}
-					if (!ptv[u] && t) // up - opaque, down - transparent
-					{
-						faceData.set(Direction.DOWN, u, v - 1);
-					}
-
-					ptu = t;
-					ptv[u] = t;
-				}
-				// If the last pixel in the row is opaque, then it also has a side to the right.
-				// (east)
-				if (!ptu) // last - opaque
-				{
-					faceData.set(Direction.EAST, uMax - 1, v);
-				}
+			SpriteMask mask = SpriteMask.of(sprite, f).intersect(templateMask);
+			for (Direction facing : SIDES) {
+				SpriteMask sides = mask.getSides(facing);
+				faceData.merge(facing, sides, SpriteMask::union);
 			}
-			// For every pixel in the final row, if it is opaque,
-			// then it also has a side facing down.
-			// last line
-			for (int u = 0; u < uMax; u++) {
-				if (!ptv[u]) {
-					faceData.set(Direction.DOWN, u, vMax - 1);
-				}
+		}
+
+		// Work out which sides are hidden by upper layers
+		// A side is hidden if the upper layers hide its pixel, and either also hide the
+		// neighboring pixel (so the side is inside them) or have a side of their own there
+		// Hidden sides may still be drawn, so they are kept in faceData, and the sides
+		// that must be drawn are kept separately
+		boolean culling = upperOpaque != null && upperOpaque.isSameSize(templateMask)
+				&& upperOpaque.isSameSize(faceData.get(Direction.UP));
+		EnumMap<Direction, SpriteMask> shownSides = new EnumMap<>(faceData);
+		if (culling) {
+			for (Direction facing : SIDES) {
+				SpriteMask hidden = upperOpaque.intersect(
+						upperOpaque.getNeighbors(facing).union(upperVisible.getNeighbors(facing).invert()));
+				shownSides.put(facing, faceData.get(facing).subtract(hidden));
 			}
 		}
 
 		// DEBUG
-		for (Direction facing : new Direction[] { Direction.UP, Direction.DOWN, Direction.WEST, Direction.EAST }) {
+		// Only build the strings if they will be logged, since this runs on every bake
+		if (LOGGER.isTraceEnabled()) {
+			for (Direction facing : SIDES) {
 
-			String output = IntStream.range(0, vMax).mapToObj((v) -> {
-				return IntStream.range(0, uMax).mapToObj((u) -> faceData.get(facing, u, v) ? "1" : "0")
-						.collect(Collectors.joining(" "));
-			}).collect(Collectors.joining("\n"));
+				String output = IntStream.range(0, vMax).mapToObj((v) -> {
+					return IntStream.range(0, uMax).mapToObj((u) -> faceData.get(facing).isVisible(u, v) ? "1" : "0")
+							.collect(Collectors.joining(" "));
+				}).collect(Collectors.joining("\n"));
 
-			LOGGER.trace("Direction: {}", facing);
-			LOGGER.trace("FaceData:\n{}", output);
+				LOGGER.trace("Direction: {}", facing);
+				LOGGER.trace("FaceData:\n{}", output);
 
+			}
 		}
 
 		// The following section generates horizontal side quads.
@@ -291,45 +350,34 @@ public class TemplateItemModel implements IModelGeometry<TemplateItemModel> {
 					facing.toString().toUpperCase());
 			// Iterate over each row of pixels.
 			for (int v = 0; v < vMax; v++) {
-				// For each row, we keep track of whether we are currently building a quad.
-				// We also keep track of the start of the current quad, and the end of the
-				// current quad.
-				// These are only relevant if we are building a quad.
-				int uStart = 0, uEnd = uMax;
-				boolean building = false;
-				// Iterate over every pixel in the row
-				for (int u = 0; u < uMax; u++) {
+				// For each row, we keep track of the run of sides we are currently in.
+				// A run is only built if it has a side that must be shown, and only
+				// spans from the first to the last of those sides. Hidden sides in
+				// between are drawn anyway, so culling never splits a run into more quads.
+				// uStart is negative while the current run has no shown sides.
+				int uStart = -1, uEnd = -1;
+				// Iterate over every pixel in the row, plus one past the end to finish the last run
+				for (int u = 0; u <= uMax; u++) {
 					// Retrieve whether the current pixel has a side or not
-					boolean face = faceData.get(facing, u, v);
+					// Pixels past the end of the row never have a side
+					boolean face = faceData.get(facing).isVisible(u, v);
 
-					// If we're building a quad and the current pixel doesn't have a side,
-					// we finish the current quad and send it to the list.
-					if (building && !face) // finish current quad
+					if (face && shownSides.get(facing).isVisible(u, v)) {
+						if (uStart < 0)
+							uStart = u;
+						uEnd = u + 1;
+					}
+					// If the run ends here, finish the current quad and send it to the list.
+					if (!face && uStart >= 0) // finish current quad
 					{
-						// make quad [uStart, u]
+						// make quad [uStart, uEnd]
 						int off = facing == Direction.DOWN ? 1 : 0;
 						LOGGER.trace("Building a horizontal quad facing {} at row v={} with start u={} and end u={}",
-								facing, v, uStart, u);
-						builder.add(buildSideQuad(transform, facing, tint, nudge, sprite, uStart, v + off, u - uStart));
-						building = false;
+								facing, v, uStart, uEnd);
+						builder.add(buildSideQuad(transform, facing, tint, nudge, sprite, uStart, v + off, uEnd - uStart));
 					}
-					// If we're not already building a quad and the current pixel has a side,
-					// we start building a new quad.
-					else if (!building && face) // start new quad
-					{
-						building = true;
-						uStart = u;
-					}
-				}
-				// If we're still building a quad at the end of the row,
-				// finish the current quad and send it to the list.
-				if (building) // build remaining quad
-				{
-					// make quad [uStart, uEnd]
-					int off = facing == Direction.DOWN ? 1 : 0;
-					LOGGER.trace("Building a horizontal quad facing {} at row v={} with start u={} and end u={}",
-							facing, v, uStart, uEnd);
-					builder.add(buildSideQuad(transform, facing, tint, nudge, sprite, uStart, v + off, uEnd - uStart));
+					if (!face)
+						uStart = -1;
 				}
 			}
 		}
@@ -344,32 +392,25 @@ public class TemplateItemModel implements IModelGeometry<TemplateItemModel> {
 			LOGGER.trace("\n=========================\n{} QUADS\n=========================",
 					facing.toString().toUpperCase());
 			for (int u = 0; u < uMax; u++) {
-				int vStart = 0, vEnd = vMax;
-				boolean building = false;
-				for (int v = 0; v < vMax; v++) {
-					boolean face = faceData.get(facing, u, v);
-
-					if (building && !face) // finish current quad
+				int vStart = -1, vEnd = -1;
+				for (int v = 0; v <= vMax; v++) {
+					boolean face = faceData.get(facing).isVisible(u, v);
+
+					if (face && shownSides.get(facing).isVisible(u, v)) {
+						if (vStart < 0)
+							vStart = v;
+						vEnd = v + 1;
+					}
+					if (!face && vStart >= 0) // finish current quad
 					{
-						// make quad [vStart, v]
+						// make quad [vStart, vEnd]
 						int off = facing == Direction.EAST ? 1 : 0;
 						LOGGER.trace("Building a vertical quad facing {} at column u={} with start v={} and end v={}",
-								facing, u, vStart, v);
-						builder.add(buildSideQuad(transform, facing, tint, nudge, sprite, u + off, vStart, v - vStart));
-						building = false;
-					} else if (!building && face) // start new quad
-					{
-						building = true;
-						vStart = v;
+								facing, u, vStart, vEnd);
+						builder.add(buildSideQuad(transform, facing, tint, nudge, sprite, u + off, vStart, vEnd - vStart));
 					}
-				}
-				if (building) // build remaining quad
-				{
-					// make quad [vStart, vEnd]
-					int off = facing == Direction.EAST ? 1 : 0;
-					LOGGER.trace("Building a vertical quad facing {} at column u={} with start v={} and end v={}",
-							facing, u, vStart, vEnd);
-					builder.add(buildSideQuad(transform, facing, tint, nudge, sprite, u + off, vStart, vEnd - vStart));
+					if (!face)
+						vStart = -1;
 				}
 			}
 		}
@@ -377,11 +418,22 @@ public class TemplateItemModel implements IModelGeometry<TemplateItemModel> {
 		LOGGER.trace("Generating face quads...");
 
 		// Finally, we build the "cover" front and back quads.
-
-		List<BakedQuad> backQuads = convertTexture(transform, sprite, template, 7.5f / 16f - nudge, Direction.NORTH,
-				0xffffffff, tint);
-		List<BakedQuad> frontQuads = convertTexture(transform, sprite, template, 8.5f / 16f + nudge, Direction.SOUTH,
-				0xffffffff, tint);
+		// Skip the parts hidden by upper layers, unless that splits the cover into more quads
+
+		List<BakedQuad> backQuads = convertTexture(transform, sprite, templateMask, 7.5f / 16f - nudge,
+				Direction.NORTH, 0xffffffff, tint);
+		List<BakedQuad> frontQuads = convertTexture(transform, sprite, templateMask, 8.5f / 16f + nudge,
+				Direction.SOUTH, 0xffffffff, tint);
+		if (culling) {
+			SpriteMask coverMask = templateMask.subtract(upperOpaque);
+			List<BakedQuad> culledBackQuads = convertTexture(transform, sprite, coverMask, 7.5f / 16f - nudge,
+					Direction.NORTH, 0xffffffff, tint);
+			if (culledBackQuads.size() < backQuads.size()) {
+				backQuads = culledBackQuads;
+				frontQuads = convertTexture(transform, sprite, coverMask, 8.5f / 16f + nudge, Direction.SOUTH,
+						0xffffffff, tint);
+			}
+		}
 		LOGGER.trace("Total back quads: {} Total front quads: {}", backQuads.size(), frontQuads.size());
 		builder.addAll(backQuads);
 		builder.addAll(frontQuads);
@@ -389,25 +441,90 @@ public class TemplateItemModel implements IModelGeometry<TemplateItemModel> {
 	}
 
 	/**
-	 * Takes a texture and converts it into BakedQuads. The conversion is done by
-	 * scanning the texture horizontally and vertically and creating "strips" of the
-	 * texture. Strips that are of the same size and follow each other are converted
-	 * into one bigger quad. </br>
-	 * The resulting list of quads is the texture represented as a list of
-	 * horizontal OR vertical quads, depending on which creates less quads. If the
-	 * amount of quads is equal, horizontal is preferred.
-	 *
-	 * @param format
+	 * Takes a texture and converts it into BakedQuads.
+	 * 
 	 * @param template The input texture to convert
 	 * @param sprite   The texture whose UVs shall be used
 	 * @return The generated quads.
 	 */
 	public static List<BakedQuad> convertTexture(TransformationMatrix transform, TextureAtlasSprite sprite,
 			TextureAtlasSprite template, float z, Direction facing, int color, int tint) {
-		List<BakedQuad> horizontal = convertTextureHorizontal(transform, sprite, template, z, facing, color, tint);
-		List<BakedQuad> vertical = convertTextureVertical(transform, sprite, template, z, facing, color, tint);
+		return convertTexture(transform, sprite, SpriteMask.of(template, 0), z, facing, color, tint);
+	}
 
-		return horizontal.size() <= vertical.size() ? horizontal : vertical;
+	/**
+	 * Takes a mask and converts it into BakedQuads. The conversion is done using
+	 * greedy rectangles, as well as by scanning the mask horizontally and vertically
+	 * and creating "strips". Strips that are of the same size and follow each other
+	 * are converted into one bigger quad. </br>
+	 * Whichever method creates the least quads is used. If the amount of quads is
+	 * equal, greedy rectangles are preferred, then horizontal strips.
+	 *
+	 * @param mask   The pixels to convert
+	 * @param sprite The texture whose UVs shall be used
+	 * @return The generated quads.
+	 */
+	public static List<BakedQuad> convertTexture(TransformationMatrix transform, TextureAtlasSprite sprite,
+			SpriteMask mask, float z, Direction facing, int color, int tint) {
+		List<BakedQuad> greedy = convertTextureGreedy(transform, sprite, mask, z, facing, color, tint);
+		List<BakedQuad> horizontal = convertTextureHorizontal(transform, sprite, mask, z, facing, color, tint);
+		List<BakedQuad> vertical = convertTextureVertical(transform, sprite, mask, z, facing, color, tint);
+
+		List<BakedQuad> strips = horizontal.size() <= vertical.size() ? horizontal : vertical;
+		return greedy.size() <= strips.size() ? greedy : strips;
+	}
+
+	/**
+	 * Converts a mask into rectangles by repeatedly taking the first pixel not yet
+	 * covered, growing a rectangle to the right as far as possible, then growing it
+	 * downwards as long as the whole width is still visible.
+	 */
+	public static List<BakedQuad> convertTextureGreedy(TransformationMatrix transform, TextureAtlasSprite sprite,
+			SpriteMask mask, float z, Direction facing, int color, int tint) {
+		int w = mask.getWidth();
+		int h = mask.getHeight();
+		float wScale = 16f / (float) w;
+		float hScale = 16f / (float) h;
+		List<BakedQuad> quads = Lists.newArrayList();
+
+		// Marks the pixels that are already part of a quad
+		boolean[] used = new boolean[w * h];
+		for (int y = 0; y < h; y++) {
+			for (int x = 0; x < w; x++) {
+				if (used[y * w + x] || !mask.isVisible(x, y))
+					continue;
+				// Grow to the right
+				int endX = x + 1;
+				while (endX < w && !used[y * w + endX] && mask.isVisible(endX, y)) {
+					endX++;
+				}
+				// Grow downwards
+				int endY = y + 1;
+				boolean canGrow = true;
+				while (canGrow && endY < h) {
+					for (int i = x; i < endX; i++) {
+						if (used[endY * w + i] || !mask.isVisible(i, endY)) {
+							canGrow = false;
+							break;
+						}
+					}
+					if (canGrow) {
+						endY++;
+					}
+				}
+				// Mark the rectangle as used
+				for (int j = y; j < endY; j++) {
+					for (int i = x; i < endX; i++) {
+						used[j * w + i] = true;
+					}
+				}
+				// create the quad
+				quads.add(ItemTextureQuadConverter.genQuad(transform, (float) x * wScale, (float) y * hScale,
+						(float) endX * wScale, (float) endY * hScale, z, sprite, facing, color, tint));
+			}
+		}
+
+		return quads;
 	}
 
 	/**
@@ -415,9 +532,9 @@ public class TemplateItemModel implements IModelGeometry<TemplateItemModel> {
 	 * top of each other. The height of the strips is as big as possible.
 	 */
 	public static List<BakedQuad> convertTextureHorizontal(TransformationMatrix transform, TextureAtlasSprite sprite,
-			TextureAtlasSprite template, float z, Direction facing, int color, int tint) {
-		int w = template.getWidth();
-		int h = template.getHeight();
+			SpriteMask mask, float z, Direction facing, int color, int tint) {
+		int w = mask.getWidth();
+		int h = mask.getHeight();
 		float wScale = 16f / (float) w;
 		float hScale = 16f / (float) h;
 		List<BakedQuad> quads = Lists.newArrayList();
@@ -427,7 +544,7 @@ public class TemplateItemModel implements IModelGeometry<TemplateItemModel> {
 		for (int y = 0; y < h; y++) {
 			for (int x = 0; x <= w; x++) {
 				// current pixel
-				boolean isVisible = isVisible(template, 0, x, y);
+				boolean isVisible = mask.isVisible(x, y);
 
 				// no current quad but found a new one
 				if (start < 0 && isVisible) {
@@ -441,12 +558,7 @@ public class TemplateItemModel implements IModelGeometry<TemplateItemModel> {
 					int endY = y + 1;
 					boolean sameRow = true;
 					while (sameRow && endY < h) {
-						for (int i = 0; i < w; i++) {
-							if (isVisible(template, 0, i, y) != isVisible(template, 0, i, endY)) {
-								sameRow = false;
-								break;
-							}
-						}
+						sameRow = mask.rowEquals(y, endY);
 						if (sameRow) {
 							endY++;
 						}
@@ -475,9 +587,9 @@ public class TemplateItemModel implements IModelGeometry<TemplateItemModel> {
 	 * possible.
 	 */
 	public static List<BakedQuad> convertTextureVertical(TransformationMatrix transform, TextureAtlasSprite sprite,
-			TextureAtlasSprite template, float z, Direction facing, int color, int tint) {
-		int w = template.getWidth();
-		int h = template.getHeight();
+			SpriteMask mask, float z, Direction facing, int color, int tint) {
+		int w = mask.getWidth();
+		int h = mask.getHeight();
 		float wScale = 16f / (float) w;
 		float hScale = 16f / (float) h;
 		List<BakedQuad> quads = Lists.newArrayList();
@@ -487,7 +599,7 @@ public class TemplateItemModel implements IModelGeometry<TemplateItemModel> {
 		for (int x = 0; x < w; x++) {
 			for (int y = 0; y <= h; y++) {
 				// current pixel
-				boolean isVisible = isVisible(template, 0, x, y);
+				boolean isVisible = mask.isVisible(x, y);
 
 				// no current quad but found a new one
 				if (start < 0 && isVisible) {
@@ -501,12 +613,7 @@ public class TemplateItemModel implements IModelGeometry<TemplateItemModel> {
 					int endX = x + 1;
 					boolean sameColumn = true;
 					while (sameColumn && endX < w) {
-						for (int i = 0; i < h; i++) {
-							if (isVisible(template, 0, x, i) != isVisible(template, 0, endX, i)) {
-								sameColumn = false;
-								break;
-							}
-						}
+						sameColumn = mask.columnEquals(x, endX);
 						if (sameColumn) {
 							endX++;
 						}
@@ -591,8 +698,11 @@ public class TemplateItemModel implements IModelGeometry<TemplateItemModel> {
 		y0 += yNudge;
 		y1 += yNudge;
 	
-		LOGGER.trace("SIDE QUAD\n(x0,y0,z0): ({},{},{}) (x1,y1,z1): ({},{},{})\n(u0,v0): ({},{}) (u1,v1): ({},{})\n",
-				x0, y0, z0, x1, y1, z1, u0, v0, u1, v1);
+		// The arguments would be boxed even if nothing is logged
+		if (LOGGER.isTraceEnabled()) {
+			LOGGER.trace("SIDE QUAD\n(x0,y0,z0): ({},{},{}) (x1,y1,z1): ({},{},{})\n(u0,v0): ({},{}) (u1,v1): ({},{})\n",
+					x0, y0, z0, x1, y1, z1, u0, v0, u1, v1);
+		}
 	
 		return buildQuad(transform, side, sprite, tint, x0, y0, z0, sprite.getInterpolatedU(u0),
 				sprite.getInterpolatedV(v0), x1, y1, z0, sprite.getInterpolatedU(u1), sprite.getInterpolatedV(v1), x1,
@@ -600,14 +710,6 @@ public class TemplateItemModel implements IModelGeometry<TemplateItemModel> {
 				sprite.getInterpolatedU(u0), sprite.getInterpolatedV(v0));
 	}
 
-	private static boolean isVisible(TextureAtlasSprite sprite, int frame, int u, int v) {
-		// If the coordinates are not on the sprite return false
-		if (u < 0 || u >= sprite.getWidth() || v < 0 || v >= sprite.getHeight())
-			return false;
-		// Else look up the pixel
-		return (sprite.getPixelRGBA(frame, u, v) >> 24 & 255) / 255f > 0.1f;
-	}
-
 	private static BakedQuad buildQuad(TransformationMatrix transform, Direction side, TextureAtlasSprite sprite,
 			int tint, float x0, float y0, float z0, float u0, float v0, float x1, float y1, float z1, float u1,
 			float v1, float x2, float y2, float z2, float u2, float v2, float x3, float y3, float z3, float u3,
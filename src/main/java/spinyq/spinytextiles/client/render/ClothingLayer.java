@@ -3,8 +3,11 @@ package spinyq.spinytextiles.client.render;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.mojang.blaze3d.matrix.MatrixStack;
 
+import net.minecraft.client.Minecraft;
 import net.minecraft.client.renderer.IRenderTypeBuffer;
 import net.minecraft.client.renderer.entity.EntityRendererManager;
 import net.minecraft.client.renderer.entity.IEntityRenderer;
@@ -14,21 +17,108 @@ import net.minecraft.client.renderer.entity.model.BipedModel;
 import net.minecraft.entity.LivingEntity;
 import net.minecraft.inventory.EquipmentSlotType;
 import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.CompoundNBT;
 import net.minecraftforge.api.distmarker.Dist;
 import net.minecraftforge.api.distmarker.OnlyIn;
+import net.minecraftforge.event.TickEvent;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
 import net.minecraftforge.fml.common.Mod.EventBusSubscriber;
 import net.minecraftforge.fml.common.Mod.EventBusSubscriber.Bus;
 import net.minecraftforge.fml.event.lifecycle.FMLClientSetupEvent;
+import spinyq.spinytextiles.ClientConfig;
 import spinyq.spinytextiles.items.ClothingItem;
+import spinyq.spinytextiles.utility.registry.LazyForgeRegistry;
 import spinyq.spinytextiles.utility.textile.clothing.ClothingPattern;
 import spinyq.spinytextiles.utility.textile.clothing.IClothing;
+import spinyq.spinytextiles.utility.textile.clothing.NBTClothing;
 
 @OnlyIn(Dist.CLIENT)
 @EventBusSubscriber(bus = Bus.MOD)
 public class ClothingLayer<T extends LivingEntity, M extends BipedModel<T>> extends LayerRenderer<T, M> {
 
 	private static final Logger LOGGER = LogManager.getLogger();
+	// EquipmentSlotType.values() copies the array every time it is called
+	private static final EquipmentSlotType[] SLOTS = EquipmentSlotType.values();
+	private static final LazyForgeRegistry<ClothingPattern> PATTERN_REGISTRY = LazyForgeRegistry.of(ClothingPattern.class);
+	// Entities come and go, so weak keys let their outfits be collected along with them
+	private static final Cache<LivingEntity, Outfit> OUTFITS = CacheBuilder.newBuilder().weakKeys().build();
+
+	/**
+	 * The clothing an entity is wearing, worked out from its equipment.
+	 * The stacks and tags the outfit was worked out from are remembered, so the
+	 * outfit is only worked out again when one of them is swapped out.
+	 */
+	private static class Outfit {
+
+		private final ItemStack[] stacks = new ItemStack[SLOTS.length];
+		private final CompoundNBT[] tags = new CompoundNBT[SLOTS.length];
+		// The pieces of clothing being worn, with the pattern and pattern ID of each piece
+		private final IClothing[] clothing = new IClothing[SLOTS.length];
+		private final ClothingPattern[] patterns = new ClothingPattern[SLOTS.length];
+		private final int[] patternIds = new int[SLOTS.length];
+		private int count;
+
+		private Outfit(LivingEntity entity) {
+			for (int i = 0; i < SLOTS.length; i++) {
+				EquipmentSlotType slot = SLOTS[i];
+				// Get itemstack currently in slot
+				ItemStack stack = entity.getItemStackFromSlot(slot);
+				CompoundNBT tag = stack.getTag();
+				stacks[i] = stack;
+				tags[i] = tag;
+				// Make sure the item is actually a ClothingItem
+				// Clothing without a tag has no pattern, so there is nothing to render
+				if (!(stack.getItem() instanceof ClothingItem) || tag == null) continue;
+				// Get the clothing info
+				// The tag is read directly, since getOrCreateTag would change the stack
+				IClothing piece = new NBTClothing(tag);
+				// Make sure the we have equipped the clothing in the correct slot
+				// This prevents trying to render the clothing when we are holding it, for example
+				ClothingPattern pattern = piece.getPattern();
+				if (pattern == null || slot != pattern.getSlot()) continue;
+				// Remember the clothing, so it can be passed straight to ClothingRenderer
+				clothing[count] = piece;
+				patterns[count] = pattern;
+				patternIds[count] = PATTERN_REGISTRY.getID(pattern);
+				count++;
+			}
+		}
+
+		/**
+		 * Whether the entity still has the same equipment the outfit was worked out from.
+		 * Stacks are compared by identity, which catches equipment being changed or synced,
+		 * since both replace the stack or its tag.
+		 */
+		private boolean isUpToDate(LivingEntity entity) {
+			for (int i = 0; i < SLOTS.length; i++) {
+				ItemStack stack = entity.getItemStackFromSlot(SLOTS[i]);
+				if (stack != stacks[i] || stack.getTag() != tags[i]) return false;
+			}
+			return true;
+		}
+
+	}
+
+	/**
+	 * Reads the clothing distances from the config once per frame, so they aren't
+	 * read again for every entity.
+	 * @author SpinyQ
+	 *
+	 */
+	@OnlyIn(Dist.CLIENT)
+	@EventBusSubscriber(value = Dist.CLIENT)
+	public static final class FrameDistances {
+
+		private static int detailDistance, maxDistance;
+
+		@SubscribeEvent
+		public static void onRenderTick(TickEvent.RenderTickEvent event) {
+			if (event.phase != TickEvent.Phase.START) return;
+			detailDistance = ClientConfig.INSTANCE.clothingDetailDistance.get();
+			maxDistance = ClientConfig.INSTANCE.clothingDistance.get();
+		}
+
+	}
 
 	// This handles attaching the ClotherLayer to all of the player renderers.
 	@SubscribeEvent
@@ -50,22 +140,29 @@ public class ClothingLayer<T extends LivingEntity, M extends BipedModel<T>> exte
 	public void render(MatrixStack matrixStackIn, IRenderTypeBuffer bufferIn, int packedLightIn, T entitylivingbaseIn,
 			float limbSwing, float limbSwingAmount, float partialTicks, float ageInTicks, float netHeadYaw,
 			float headPitch) {
-		// Check if each of the entity's equipped items is a ClothingItem.
-		for (EquipmentSlotType slot : EquipmentSlotType.values()) {
-			// Get itemstack currently in slot
-			ItemStack stack = entitylivingbaseIn.getItemStackFromSlot(slot);
-			// Make sure the item is actually a ClothingItem
-			if (!(stack.getItem() instanceof ClothingItem)) continue;
-			ClothingItem item = (ClothingItem) stack.getItem();
-			// Get the clothing info
-			IClothing clothing = item.getClothing(stack);
-			// Make sure the we have equipped the clothing in the correct slot
-			// This prevents trying to render the clothing when we are holding it, for example
-			ClothingPattern pattern = clothing.getPattern();
-			if (slot != pattern.getSlot()) continue;
-			// Pass over control to ClothingRenderer
-			ClothingRenderer.INSTANCE.renderClothing(matrixStackIn, bufferIn, packedLightIn, clothing, this.getEntityModel());
+		// Work out how much detail the clothing can be rendered with from far away
+		double distanceSq = Minecraft.getInstance().getRenderManager().getDistanceToCamera(entitylivingbaseIn.getPosX(),
+				entitylivingbaseIn.getPosY(), entitylivingbaseIn.getPosZ());
+		LevelOfDetail lod = LevelOfDetail.of(distanceSq, FrameDistances.detailDistance, FrameDistances.maxDistance);
+		if (lod == LevelOfDetail.NONE) return;
+		Outfit outfit = getOutfit(entitylivingbaseIn);
+		// Pass over control to ClothingRenderer for each piece of the outfit
+		for (int i = 0; i < outfit.count; i++) {
+			ClothingRenderer.INSTANCE.renderClothing(matrixStackIn, bufferIn, packedLightIn, outfit.patterns[i],
+					outfit.patternIds[i], outfit.clothing[i], this.getEntityModel(), lod);
+		}
+	}
+
+	/**
+	 * Retrieves the outfit of an entity, working it out again if the entity's equipment changed.
+	 */
+	private static Outfit getOutfit(LivingEntity entity) {
+		Outfit outfit = OUTFITS.getIfPresent(entity);
+		if (outfit == null || !outfit.isUpToDate(entity)) {
+			outfit = new Outfit(entity);
+			OUTFITS.put(entity, outfit);
 		}
+		return outfit;
 	}
 
 }
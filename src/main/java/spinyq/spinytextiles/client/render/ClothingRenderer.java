@@ -1,7 +1,9 @@
 package spinyq.spinytextiles.client.render;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
@@ -19,10 +21,12 @@ import net.minecraftforge.api.distmarker.Dist;
 import net.minecraftforge.api.distmarker.OnlyIn;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
 import net.minecraftforge.fml.event.lifecycle.FMLCommonSetupEvent;
+import net.minecraftforge.fml.event.lifecycle.FMLLoadCompleteEvent;
 import net.minecraftforge.fml.javafmlmod.FMLJavaModLoadingContext;
 import net.minecraftforge.registries.IForgeRegistry;
 import spinyq.spinytextiles.utility.registry.LazyForgeRegistry;
 import spinyq.spinytextiles.utility.textile.clothing.ClothingPart;
+import spinyq.spinytextiles.utility.textile.clothing.ClothingPattern;
 import spinyq.spinytextiles.utility.textile.clothing.FabricClothingPart;
 import spinyq.spinytextiles.utility.textile.clothing.IClothing;
 
@@ -32,16 +36,49 @@ public class ClothingRenderer implements IFutureReloadListener {
 	@OnlyIn(Dist.CLIENT)
 	public interface IClothingPartRenderer<T extends ClothingPart> {
 		
+		/**
+		 * Renders a clothing part.
+		 * @param lod How much detail to render the part with. This is never NONE.
+		 */
 		void render(MatrixStack matrixStackIn, IRenderTypeBuffer bufferIn, int packedLightIn,
-				T clothingPart, IClothing clothing, BipedModel<?> skeleton);
+				T clothingPart, IClothing clothing, BipedModel<?> skeleton, LevelOfDetail lod);
+		/**
+		 * Loads the resources of a clothing part.
+		 * Parts are loaded in parallel, so this must be safe to call from several
+		 * threads at once.
+		 */
 		void loadResources(IResourceManager resourceManager, T part) throws IOException;
 		
 	}
 	
+	/**
+	 * The parts of a clothing pattern, each paired with the renderer that draws it.
+	 * Parts without a renderer are left out.
+	 */
+	@OnlyIn(Dist.CLIENT)
+	private static final class PatternDispatch {
+
+		private final ClothingPattern pattern;
+		private final ClothingPart[] parts;
+		private final IClothingPartRenderer<ClothingPart>[] renderers;
+
+		private PatternDispatch(ClothingPattern pattern, ClothingPart[] parts,
+				IClothingPartRenderer<ClothingPart>[] renderers) {
+			this.pattern = pattern;
+			this.parts = parts;
+			this.renderers = renderers;
+		}
+
+	}
+
 	private static final IForgeRegistry<ClothingPart> PART_REGISTRY = LazyForgeRegistry.of(ClothingPart.class);
+	private static final LazyForgeRegistry<ClothingPattern> PATTERN_REGISTRY = LazyForgeRegistry.of(ClothingPattern.class);
 	public static final ClothingRenderer INSTANCE = new ClothingRenderer();
 	
 	private final Map<Class<?>, IClothingPartRenderer<?>> partRenderers = new HashMap<>();
+	// The dispatch of each pattern, indexed by the pattern's numeric registry ID
+	// Built once the registries are frozen, so rendering never has to look up renderers by class
+	private volatile PatternDispatch[] dispatches;
 	
 	public ClothingRenderer() {
 		// Register built-in part renderers when we are first constructed
@@ -52,6 +89,8 @@ public class ClothingRenderer implements IFutureReloadListener {
 	
 	public <T extends ClothingPart> void registerPartRenderer(Class<T> clazz, IClothingPartRenderer<T> renderer) {
 		partRenderers.put(clazz, renderer);
+		// The dispatches might be missing the new renderer, so build them again when they are next needed
+		dispatches = null;
 	}
 	
 	/**
@@ -64,15 +103,73 @@ public class ClothingRenderer implements IFutureReloadListener {
 	 * @param clothing
 	 * @param skeleton
 	 */
-	@SuppressWarnings({ "rawtypes", "unchecked" })
 	public void renderClothing(MatrixStack matrixStackIn, IRenderTypeBuffer bufferIn, int packedLightIn, IClothing clothing, BipedModel<?> skeleton) {
+		ClothingPattern pattern = clothing.getPattern();
+		if (pattern == null) return;
+		renderClothing(matrixStackIn, bufferIn, packedLightIn, pattern, PATTERN_REGISTRY.getID(pattern), clothing,
+				skeleton, LevelOfDetail.FULL);
+	}
+
+	/**
+	 * Renders a piece of clothing whose pattern and pattern ID have already been
+	 * looked up, like ClothingLayer does.
+	 * @param lod How much detail to render the clothing with
+	 */
+	public void renderClothing(MatrixStack matrixStackIn, IRenderTypeBuffer bufferIn, int packedLightIn,
+			ClothingPattern pattern, int patternId, IClothing clothing, BipedModel<?> skeleton, LevelOfDetail lod) {
+		if (lod == LevelOfDetail.NONE) return;
+		PatternDispatch dispatch = getDispatch(pattern, patternId);
+		if (dispatch == null) return;
 		// Render each clothing part that makes up the clothing piece
-		clothing.getPattern().getPartStream().forEach((clothingPart) -> {
-			// Try to look up a clothing part renderer
-			IClothingPartRenderer renderer = partRenderers.get(clothingPart.getClass());
-			// If it exists, pass the control over to the renderer
-			if (renderer != null) renderer.render(matrixStackIn, bufferIn, packedLightIn, clothingPart, clothing, skeleton); 
-		});
+		for (int i = 0; i < dispatch.parts.length; i++) {
+			dispatch.renderers[i].render(matrixStackIn, bufferIn, packedLightIn, dispatch.parts[i], clothing, skeleton, lod);
+		}
+	}
+
+	/**
+	 * Looks up the dispatch of a pattern by its ID.
+	 * If the dispatch under the ID belongs to a different pattern, the IDs must
+	 * have been remapped (like when joining a server), so the dispatches are built
+	 * again.
+	 */
+	private PatternDispatch getDispatch(ClothingPattern pattern, int patternId) {
+		PatternDispatch[] dispatches = this.dispatches;
+		if (dispatches == null || !matches(dispatches, pattern, patternId)) {
+			dispatches = buildDispatches();
+			if (!matches(dispatches, pattern, patternId)) return null;
+		}
+		return dispatches[patternId];
+	}
+
+	private static boolean matches(PatternDispatch[] dispatches, ClothingPattern pattern, int patternId) {
+		return patternId >= 0 && patternId < dispatches.length && dispatches[patternId] != null
+				&& dispatches[patternId].pattern == pattern;
+	}
+
+	/**
+	 * Resolves the parts and renderers of every clothing pattern.
+	 */
+	@SuppressWarnings("unchecked")
+	private PatternDispatch[] buildDispatches() {
+		// Registry IDs are small and dense, so the array stays small
+		int size = PATTERN_REGISTRY.getValues().stream().mapToInt(PATTERN_REGISTRY::getID).max().orElse(-1) + 1;
+		PatternDispatch[] dispatches = new PatternDispatch[size];
+		for (ClothingPattern pattern : PATTERN_REGISTRY.getValues()) {
+			List<ClothingPart> parts = new ArrayList<>();
+			List<IClothingPartRenderer<ClothingPart>> renderers = new ArrayList<>();
+			for (int i = 0; i < pattern.getPartCount(); i++) {
+				ClothingPart part = pattern.getPart(i);
+				IClothingPartRenderer<ClothingPart> renderer = (IClothingPartRenderer<ClothingPart>) partRenderers.get(part.getClass());
+				if (renderer != null) {
+					parts.add(part);
+					renderers.add(renderer);
+				}
+			}
+			dispatches[PATTERN_REGISTRY.getID(pattern)] = new PatternDispatch(pattern,
+					parts.toArray(new ClothingPart[0]), renderers.toArray(new IClothingPartRenderer[0]));
+		}
+		this.dispatches = dispatches;
+		return dispatches;
 	}
 
 	@Override
@@ -80,12 +177,13 @@ public class ClothingRenderer implements IFutureReloadListener {
 			IProfiler preparationsProfiler, IProfiler reloadProfiler, Executor backgroundExecutor,
 			Executor gameExecutor) {
 		// File IO can run off-thread, so this can be ran asynchronously.
-		return CompletableFuture.runAsync(() -> {
-			// For each clothing part, let its renderer handle loading resources.
-			for (ClothingPart part : PART_REGISTRY.getValues()) {
-				loadClothingPart(resourceManager, part);
-			}
-		}, backgroundExecutor)
+		// Each clothing part gets its own task, so parts are loaded in parallel.
+		// Part renderers store what they load in concurrent maps, so the results
+		// are merged as each task finishes.
+		CompletableFuture<?>[] tasks = PART_REGISTRY.getValues().stream()
+				.map((part) -> CompletableFuture.runAsync(() -> loadClothingPart(resourceManager, part), backgroundExecutor))
+				.toArray(CompletableFuture[]::new);
+		return CompletableFuture.allOf(tasks)
 				// Mark that we are finished with our background tasks
 				.thenCompose(stage::markCompleteAwaitingOthers);
 	}
@@ -96,6 +194,12 @@ public class ClothingRenderer implements IFutureReloadListener {
 		((IReloadableResourceManager) Minecraft.getInstance().getResourceManager()).addReloadListener(this);
 	}
 
+	@SubscribeEvent
+	public void onLoadComplete(FMLLoadCompleteEvent event) {
+		// The registries are frozen by now, so every pattern can be resolved up front
+		buildDispatches();
+	}
+
 	@SuppressWarnings("unchecked")
 	private <T extends ClothingPart> void loadClothingPart(IResourceManager resourceManager, T part) {
 		IClothingPartRenderer<T> renderer = (IClothingPartRenderer<T>) partRenderers.get(part.getClass());
@@ -7,6 +7,7 @@ import net.minecraft.client.renderer.RenderType;
 import net.minecraft.client.renderer.texture.AtlasTexture;
 import net.minecraft.client.renderer.vertex.DefaultVertexFormats;
 import net.minecraft.client.renderer.vertex.VertexFormat;
+import net.minecraft.util.LazyValue;
 import net.minecraft.util.ResourceLocation;
 import net.minecraftforge.api.distmarker.Dist;
 import net.minecraftforge.api.distmarker.OnlyIn;
@@ -15,6 +16,8 @@ import net.minecraftforge.api.distmarker.OnlyIn;
 public class CuboidRenderType extends RenderType {
 
 	private static final AlphaState CUBOID_ALPHA = new RenderState.AlphaState(0.1F);
+	// Render types are only created once, and shared by every renderer
+	private static final LazyValue<RenderType> RESIZABLE_CUBOID = new LazyValue<>(CuboidRenderType::createResizableCuboid);
 	
 	public CuboidRenderType(String nameIn, VertexFormat formatIn, int drawModeIn, int bufferSizeIn,
 			boolean useDelegateIn, boolean needsSortingIn, Runnable setupTaskIn, Runnable clearTaskIn) {
@@ -31,8 +34,12 @@ public class CuboidRenderType extends RenderType {
               .overlay(OVERLAY_ENABLED);
     }
 
-    @SuppressWarnings("deprecation")
     public static RenderType resizableCuboid() {
+    	return RESIZABLE_CUBOID.getValue();
+    }
+
+    @SuppressWarnings("deprecation")
+    private static RenderType createResizableCuboid() {
 		CuboidRenderType.State.Builder stateBuilder = preset(AtlasTexture.LOCATION_BLOCKS_TEXTURE)
               .alpha(CUBOID_ALPHA);//enableAlphaTest/alphaFunc(GL11.GL_GREATER, 0.1F)
         return makeType("resizable_cuboid", DefaultVertexFormats.ENTITY, GL11.GL_QUADS, 256, true, false,
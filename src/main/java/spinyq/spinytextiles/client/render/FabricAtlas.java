@@ -0,0 +1,335 @@
+package spinyq.spinytextiles.client.render;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.google.common.collect.ImmutableList;
+import com.mojang.blaze3d.systems.RenderSystem;
+
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.renderer.RenderType;
+import net.minecraft.client.renderer.TransformationMatrix;
+import net.minecraft.client.renderer.model.BakedQuad;
+import net.minecraft.client.renderer.model.Material;
+import net.minecraft.client.renderer.texture.DynamicTexture;
+import net.minecraft.client.renderer.texture.NativeImage;
+import net.minecraft.client.renderer.texture.TextureAtlasSprite;
+import net.minecraft.client.resources.data.AnimationMetadataSection;
+import net.minecraft.util.LazyValue;
+import net.minecraft.util.ResourceLocation;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.api.distmarker.OnlyIn;
+import net.minecraftforge.client.event.RenderGameOverlayEvent;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod.EventBusSubscriber;
+import spinyq.spinytextiles.ClientConfig;
+import spinyq.spinytextiles.TextileMod;
+import spinyq.spinytextiles.client.model.TemplateItemModel;
+import spinyq.spinytextiles.client.render.FabricCompositor.Image;
+import spinyq.spinytextiles.utility.textile.fabric.FabricPattern;
+import spinyq.spinytextiles.utility.textile.fabric.FabricSnapshot;
+
+/**
+ * Holds composited fabrics in a texture of their own, the "spinytextiles:fabric" atlas.
+ * The atlas is split into slots the size of the fabric template, and is made big
+ * enough to hold the configured number of slots. Each fabric being rendered gets
+ * a slot, and when there are no slots left, the least recently used fabric is
+ * thrown out. Fabrics used in the current frame are never thrown out, since their
+ * quads might already be queued; if every slot is in use, get returns null and the
+ * fabric should be rendered some other way.
+ * Every slot also gets the quads of its fabric, which are generated the same way
+ * as the quads of a template item model, but with only one layer.
+ * Fabrics are identified by their pattern and colors, so stacks which look the
+ * same share a slot.
+ * This must only be used on the render thread, except for reset.
+ * @author SpinyQ
+ *
+ */
+@OnlyIn(Dist.CLIENT)
+@EventBusSubscriber(value = Dist.CLIENT)
+public class FabricAtlas {
+
+	private static final Logger LOGGER = LogManager.getLogger();
+
+	public static final ResourceLocation LOCATION = new ResourceLocation(TextileMod.MODID, "fabric");
+	private static final LazyValue<RenderType> RENDER_TYPE = new LazyValue<>(
+			() -> RenderType.getEntityTranslucentCull(LOCATION));
+
+	public static final FabricAtlas INSTANCE = new FabricAtlas();
+
+	/**
+	 * Identifies a fabric by its pattern and colors.
+	 * The pattern itself is kept instead of its ID, since IDs are remapped when
+	 * joining a server.
+	 */
+	private static class Key {
+
+		private final FabricPattern pattern;
+		private final int[] colors;
+		private final int hash;
+
+		private Key(FabricSnapshot fabric) {
+			this.pattern = fabric.getPattern();
+			this.colors = new int[fabric.getLayerCount()];
+			for (int i = 0; i < colors.length; i++) {
+				colors[i] = fabric.getPackedLayerColor(i);
+			}
+			this.hash = 31 * pattern.hashCode() + Arrays.hashCode(colors);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (!(obj instanceof Key))
+				return false;
+			Key other = (Key) obj;
+			return pattern == other.pattern && Arrays.equals(colors, other.colors);
+		}
+
+	}
+
+	/**
+	 * The sprite of a slot. The pixels of the composited fabric are kept as the
+	 * sprite's only frame.
+	 */
+	private static class SlotSprite extends TextureAtlasSprite {
+
+		private SlotSprite(ResourceLocation name, int atlasWidth, int atlasHeight, int x, int y, NativeImage image) {
+			super(null, new TextureAtlasSprite.Info(name, image.getWidth(), image.getHeight(),
+					AnimationMetadataSection.EMPTY), 0, atlasWidth, atlasHeight, x, y, image);
+		}
+
+	}
+
+	/**
+	 * A fabric which has been composited into the atlas.
+	 */
+	public static class Entry {
+
+		private final int slot;
+		private final SlotSprite sprite;
+		private final List<BakedQuad> quads;
+		// The frame the fabric was last used in
+		private int lastUsedFrame;
+
+		private Entry(int slot, SlotSprite sprite, List<BakedQuad> quads) {
+			this.slot = slot;
+			this.sprite = sprite;
+			this.quads = quads;
+		}
+
+		/**
+		 * Returns the quads of the fabric. These use the atlas, so they must be drawn
+		 * using the atlas's render type.
+		 */
+		public List<BakedQuad> getQuads() {
+			return quads;
+		}
+
+	}
+
+	// Ordered from least to most recently used
+	private final Map<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+	private final Deque<Integer> freeSlots = new ArrayDeque<>();
+	private DynamicTexture texture;
+	private int atlasWidth, atlasHeight, columns, slotWidth, slotHeight, slotCount;
+	// Counts rendered frames, so entries used in this frame can be told apart
+	private int frame;
+	// Set when models are baked, which happens off the render thread
+	private volatile Material template, detail;
+	private volatile int generation;
+	// The generation the atlas was last built for, and the textures it was built with
+	private int builtGeneration = -1;
+	private Material builtTemplate, builtDetail;
+	private long hits, misses, evictions, full;
+
+	public static RenderType renderType() {
+		return RENDER_TYPE.getValue();
+	}
+
+	/**
+	 * Throws away every composited fabric, and sets the textures used to
+	 * composite new ones. Passing null stops the atlas from being used.
+	 * Called whenever models are baked, since the textures might have changed.
+	 * The atlas is rebuilt the next time it is used.
+	 */
+	public void reset(@Nullable Material template, @Nullable Material detail) {
+		this.template = template;
+		this.detail = detail;
+		generation++;
+	}
+
+	/**
+	 * Retrieves a fabric from the atlas, compositing it if it isn't there.
+	 *
+	 * @return The fabric's entry, or null if the atlas hasn't been set up or every
+	 *         slot is already used this frame
+	 */
+	@Nullable
+	public Entry get(FabricSnapshot fabric) {
+		if (builtGeneration != generation)
+			rebuild();
+		if (slotCount == 0)
+			return null;
+		Key key = new Key(fabric);
+		Entry entry = entries.get(key);
+		if (entry != null) {
+			hits++;
+			entry.lastUsedFrame = frame;
+			return entry;
+		}
+		if (freeSlots.isEmpty() && !evict()) {
+			full++;
+			return null;
+		}
+		misses++;
+		entry = composite(fabric, freeSlots.pop());
+		entry.lastUsedFrame = frame;
+		entries.put(key, entry);
+		return entry;
+	}
+
+	public String getStats() {
+		return String.format("Fabric atlas: %d/%d slots, %d hits, %d misses, %d evictions, %d full", entries.size(),
+				slotCount, hits, misses, evictions, full);
+	}
+
+	/**
+	 * Clears the atlas, sizes its slots to fit the template, and sizes the texture
+	 * to fit the configured number of slots.
+	 */
+	private void rebuild() {
+		builtGeneration = generation;
+		LOGGER.debug("Rebuilding fabric atlas. {}", getStats());
+		for (Entry entry : entries.values()) {
+			entry.sprite.close();
+		}
+		entries.clear();
+		freeSlots.clear();
+		hits = misses = evictions = full = 0;
+		slotCount = 0;
+		builtTemplate = template;
+		builtDetail = detail;
+		if (builtTemplate == null)
+			return;
+		// Make slots the size of the template
+		TextureAtlasSprite templateSprite = builtTemplate.getSprite();
+		slotWidth = templateSprite.getWidth();
+		slotHeight = templateSprite.getHeight();
+		// Lay the slots out in a square, as far as the largest texture allows
+		int slots = ClientConfig.INSTANCE.fabricAtlasSlots.get();
+		int maxSize = RenderSystem.maxSupportedTextureSize();
+		columns = Math.max(1, Math.min(maxSize / slotWidth, (int) Math.ceil(Math.sqrt(slots))));
+		int rows = Math.max(1, Math.min(maxSize / slotHeight, (slots + columns - 1) / columns));
+		slotCount = Math.min(slots, columns * rows);
+		int width = columns * slotWidth, height = rows * slotHeight;
+		// Only create a new texture if the size changed
+		if (texture == null || width != atlasWidth || height != atlasHeight) {
+			atlasWidth = width;
+			atlasHeight = height;
+			Minecraft.getInstance().getTextureManager().deleteTexture(LOCATION);
+			texture = new DynamicTexture(atlasWidth, atlasHeight, true);
+			Minecraft.getInstance().getTextureManager().loadTexture(LOCATION, texture);
+		}
+		for (int slot = 0; slot < slotCount; slot++) {
+			freeSlots.add(slot);
+		}
+	}
+
+	/**
+	 * Throws out the least recently used fabric, unless it was used this frame.
+	 *
+	 * @return Whether a slot was freed
+	 */
+	private boolean evict() {
+		Iterator<Entry> iterator = entries.values().iterator();
+		Entry eldest = iterator.next();
+		// Entries are ordered by use, so if the eldest was used this frame, all of them were
+		if (eldest.lastUsedFrame == frame)
+			return false;
+		iterator.remove();
+		eldest.sprite.close();
+		freeSlots.push(eldest.slot);
+		evictions++;
+		return true;
+	}
+
+	/**
+	 * Composites a fabric into a slot and generates its quads.
+	 */
+	private Entry composite(FabricSnapshot fabric, int slot) {
+		// Gather the textures and colors of each layer
+		FabricPattern pattern = fabric.getPattern();
+		int layerCount = fabric.getLayerCount();
+		Image[] layers = new Image[layerCount];
+		int[] colors = new int[layerCount];
+		for (int i = 0; i < layerCount; i++) {
+			layers[i] = toImage(pattern.getLayer(i).getTexture().getSprite());
+			colors[i] = fabric.getLayerColor(i).toRGBInt(null);
+		}
+		Image result = FabricCompositor.composite(toImage(builtTemplate.getSprite()), toImage(builtDetail.getSprite()),
+				layers, colors);
+		// Copy the result into the slot
+		NativeImage image = new NativeImage(slotWidth, slotHeight, false);
+		for (int y = 0; y < slotHeight; y++) {
+			for (int x = 0; x < slotWidth; x++) {
+				image.setPixelRGBA(x, y, result.getPixel(x, y));
+			}
+		}
+		SlotSprite sprite = new SlotSprite(new ResourceLocation(TextileMod.MODID, "fabric/slot" + slot), atlasWidth,
+				atlasHeight, (slot % columns) * slotWidth, (slot / columns) * slotHeight, image);
+		// Only the slot's part of the texture needs to be uploaded
+		texture.bindTexture();
+		sprite.uploadMipmaps();
+		// The colors are already part of the texture, so the quads aren't tinted
+		ImmutableList.Builder<BakedQuad> quads = ImmutableList.builder();
+		TemplateItemModel.generateQuads(-1, 0f, sprite, sprite, TransformationMatrix.identity(), quads);
+		return new Entry(slot, sprite, quads.build());
+	}
+
+	// Reads the first frame of a sprite
+	private static Image toImage(TextureAtlasSprite sprite) {
+		int width = sprite.getWidth(), height = sprite.getHeight();
+		int[] pixels = new int[width * height];
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				pixels[y * width + x] = sprite.getPixelRGBA(0, x, y);
+			}
+		}
+		return new Image(width, height, pixels);
+	}
+
+	@SubscribeEvent
+	public static void onRenderTick(TickEvent.RenderTickEvent event) {
+		// Start a new frame
+		if (event.phase == TickEvent.Phase.START) {
+			INSTANCE.frame++;
+		}
+	}
+
+	@SubscribeEvent
+	public static void onDebugText(RenderGameOverlayEvent.Text event) {
+		// Show the atlas's stats on the debug screen, if it's being used
+		if (Minecraft.getInstance().gameSettings.showDebugInfo && INSTANCE.slotCount > 0) {
+			event.getLeft().add(INSTANCE.getStats());
+		}
+	}
+
+}
@@ -0,0 +1,127 @@
+package spinyq.spinytextiles.client.render;
+
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.api.distmarker.OnlyIn;
+
+/**
+ * Flattens the layers of a fabric into a single image on the CPU.
+ * The layers are stacked the same way FabricItemModel stacks its quads: each
+ * layer's texture is drawn through the template, then the detail texture is drawn
+ * through the layer's texture, both tinted with the layer's color.
+ * Pixels are stored in the same format as NativeImage, i.e. 0xAABBGGRR, row by row.
+ * This class doesn't depend on any game state, so it can be used without a running
+ * game.
+ * @author SpinyQ
+ *
+ */
+@OnlyIn(Dist.CLIENT)
+public final class FabricCompositor {
+
+	// Same as SpriteMask, so a composited fabric covers the same pixels as the quads would
+	private static final int VISIBLE_THRESHOLD = 25;
+
+	/**
+	 * A plain image. Images of different sizes can be composited together, in which
+	 * case they are sampled using the nearest pixel.
+	 */
+	public static final class Image {
+
+		private final int width, height;
+		private final int[] pixels;
+
+		public Image(int width, int height, int[] pixels) {
+			if (pixels.length != width * height)
+				throw new IllegalArgumentException("Expected " + (width * height) + " pixels, got " + pixels.length);
+			this.width = width;
+			this.height = height;
+			this.pixels = pixels;
+		}
+
+		public int getWidth() {
+			return width;
+		}
+
+		public int getHeight() {
+			return height;
+		}
+
+		public int getPixel(int x, int y) {
+			return pixels[y * width + x];
+		}
+
+		// Samples the pixel covering (x, y) of an image which is targetWidth by targetHeight
+		private int sample(int x, int y, int targetWidth, int targetHeight) {
+			return pixels[(y * height / targetHeight) * width + (x * width / targetWidth)];
+		}
+
+	}
+
+	private FabricCompositor() {
+	}
+
+	/**
+	 * Composites a fabric. The result is the same size as the template.
+	 *
+	 * @param template The template, which masks every layer's texture
+	 * @param detail   The detail texture, drawn on top of each layer
+	 * @param layers   The texture of each layer, from bottom to top
+	 * @param colors   The color of each layer, as 0xRRGGBB
+	 */
+	public static Image composite(Image template, Image detail, Image[] layers, int[] colors) {
+		if (layers.length != colors.length)
+			throw new IllegalArgumentException("Every layer needs a color");
+		int width = template.width, height = template.height;
+		int[] result = new int[width * height];
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				boolean templateVisible = isVisible(template.getPixel(x, y));
+				int pixel = 0;
+				for (int i = 0; i < layers.length; i++) {
+					int texture = layers[i].sample(x, y, width, height);
+					if (!isVisible(texture))
+						continue;
+					if (templateVisible)
+						pixel = blend(pixel, tint(texture, colors[i]));
+					int detailPixel = detail.sample(x, y, width, height);
+					if (isVisible(detailPixel))
+						pixel = blend(pixel, tint(detailPixel, colors[i]));
+				}
+				result[y * width + x] = pixel;
+			}
+		}
+		return new Image(width, height, result);
+	}
+
+	private static boolean isVisible(int pixel) {
+		return (pixel >>> 24) > VISIBLE_THRESHOLD;
+	}
+
+	/**
+	 * Multiplies a pixel by a color, like the item color handler does.
+	 */
+	private static int tint(int pixel, int color) {
+		int r = (pixel & 255) * (color >> 16 & 255) / 255;
+		int g = (pixel >> 8 & 255) * (color >> 8 & 255) / 255;
+		int b = (pixel >> 16 & 255) * (color & 255) / 255;
+		return (pixel & 0xFF000000) | (b << 16) | (g << 8) | r;
+	}
+
+	/**
+	 * Draws one pixel over another, like alpha blending does.
+	 */
+	private static int blend(int under, int over) {
+		int overAlpha = over >>> 24, underAlpha = under >>> 24;
+		// How much of the pixel underneath shows through, out of 255 * 255
+		int underWeight = underAlpha * (255 - overAlpha);
+		int alpha = overAlpha * 255 + underWeight;
+		if (alpha == 0)
+			return 0;
+		int result = 0;
+		for (int shift = 0; shift < 24; shift += 8) {
+			int channel = ((over >> shift & 255) * overAlpha * 255 + (under >> shift & 255) * underWeight) / alpha;
+			result |= channel << shift;
+		}
+		return result | ((alpha / 255) << 24);
+	}
+
+}
@@ -0,0 +1,43 @@
+package spinyq.spinytextiles.client.render;
+
+import com.mojang.blaze3d.matrix.MatrixStack;
+import com.mojang.blaze3d.vertex.IVertexBuilder;
+
+import net.minecraft.client.renderer.IRenderTypeBuffer;
+import net.minecraft.client.renderer.model.BakedQuad;
+import net.minecraft.client.renderer.tileentity.ItemStackTileEntityRenderer;
+import net.minecraft.item.ItemStack;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.api.distmarker.OnlyIn;
+import spinyq.spinytextiles.items.FabricItem;
+import spinyq.spinytextiles.utility.textile.fabric.FabricSnapshot;
+
+/**
+ * Draws fabric items using their composited texture in the fabric atlas.
+ * This is only used when compositing is enabled, in which case FabricItemModel
+ * hands out a built-in model which tells the game to use this renderer.
+ * @author SpinyQ
+ *
+ */
+@OnlyIn(Dist.CLIENT)
+public class FabricItemRenderer extends ItemStackTileEntityRenderer {
+
+	@Override
+	public void render(ItemStack stack, MatrixStack matrixStack, IRenderTypeBuffer buffer, int combinedLight,
+			int combinedOverlay) {
+		if (!(stack.getItem() instanceof FabricItem))
+			return;
+		FabricSnapshot fabric = ((FabricItem) stack.getItem()).getFabricSnapshot(stack);
+		if (fabric == null)
+			return;
+		FabricAtlas.Entry entry = FabricAtlas.INSTANCE.get(fabric);
+		if (entry == null)
+			return;
+		// The model's transforms have already been applied to the matrix stack
+		IVertexBuilder builder = buffer.getBuffer(FabricAtlas.renderType());
+		for (BakedQuad quad : entry.getQuads()) {
+			builder.addQuad(matrixStack.getLast(), quad, 1f, 1f, 1f, combinedLight, combinedOverlay);
+		}
+	}
+
+}
@@ -1,15 +1,29 @@
 package spinyq.spinytextiles.client.render;
 
+import java.io.ByteArrayInputStream;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
+import javax.annotation.Nullable;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
 import com.mojang.blaze3d.matrix.MatrixStack;
 import com.mojang.blaze3d.vertex.IVertexBuilder;
 
@@ -20,16 +34,20 @@ import net.minecraft.client.renderer.model.BakedQuad;
 import net.minecraft.client.renderer.model.BlockModel;
 import net.minecraft.client.renderer.model.IBakedModel;
 import net.minecraft.client.renderer.model.ModelBakery;
+import net.minecraft.client.renderer.texture.OverlayTexture;
 import net.minecraft.resources.IResource;
 import net.minecraft.resources.IResourceManager;
+import net.minecraft.util.Direction;
 import net.minecraft.util.ResourceLocation;
 import net.minecraftforge.api.distmarker.Dist;
 import net.minecraftforge.api.distmarker.OnlyIn;
 import net.minecraftforge.client.event.ModelBakeEvent;
+import net.minecraftforge.client.model.ModelLoaderRegistry.ExpandedBlockModelDeserializer;
 import net.minecraftforge.client.model.SimpleModelTransform;
 import net.minecraftforge.client.model.data.EmptyModelData;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
 import net.minecraftforge.fml.javafmlmod.FMLJavaModLoadingContext;
+import spinyq.spinytextiles.client.model.CompiledMesh;
 import spinyq.spinytextiles.client.render.ClothingRenderer.IClothingPartRenderer;
 import spinyq.spinytextiles.utility.textile.clothing.FabricClothingPart;
 import spinyq.spinytextiles.utility.textile.clothing.IClothing;
@@ -38,10 +56,37 @@ import spinyq.spinytextiles.utility.textile.clothing.IClothing;
 @OnlyIn(Dist.CLIENT)
 public class FabricPartRenderer implements IClothingPartRenderer<FabricClothingPart> {
 
-	private Map<FabricClothingPart, EnumMap<BodyPart, IBakedModel>> bakedModels = new HashMap<>();
-	private Map<FabricClothingPart, EnumMap<BodyPart, BlockModel>> unbakedModels = new HashMap<>();
+	// Meshes smaller than this (in blocks) are details, which are left out at reduced detail
+	private static final float DETAIL_SIZE = 3f / 16f;
+
+	// Each model is compiled into a mesh once it is baked, so rendering doesn't
+	// have to go through the baked model's quads every frame
+	// A new map is built on every bake, so meshes of parts which were removed go away
+	private volatile Map<FabricClothingPart, EnumMap<BodyPart, CompiledMesh>> meshes = new HashMap<>();
+	// Parts are loaded in parallel, so this has to be concurrent
+	private Map<FabricClothingPart, EnumMap<BodyPart, BlockModel>> unbakedModels = new ConcurrentHashMap<>();
+	// The model files parsed on earlier reloads, so files which haven't changed don't have to be parsed again
+	// Only files which were loaded on the last reload are kept
+	private final Map<ResourceLocation, ParsedModel> parsedModels = new ConcurrentHashMap<>();
 	private final Random random = new Random();
 	
+	/**
+	 * The JSON of a model file, along with a hash of the file.
+	 * The JSON is kept instead of the model, since the game changes a BlockModel
+	 * while using it, so each reload gets a model of its own.
+	 */
+	private static class ParsedModel {
+
+		private final HashCode hash;
+		private final JsonElement json;
+
+		private ParsedModel(HashCode hash, JsonElement json) {
+			this.hash = hash;
+			this.json = json;
+		}
+
+	}
+
 	public FabricPartRenderer() {
 		// Hook up event handlers
 		FMLJavaModLoadingContext.get().getModEventBus().register(this);
@@ -54,19 +99,23 @@ public class FabricPartRenderer implements IClothingPartRenderer<FabricClothingP
 
 	@Override
 	public void render(MatrixStack matrixStackIn, IRenderTypeBuffer bufferIn, int packedLightIn,
-			FabricClothingPart clothingPart, IClothing clothing, BipedModel<?> skeleton) {
-		EnumMap<BodyPart, IBakedModel> bodyPartMap = bakedModels.get(clothingPart);
-		// For each bone and model, apply the bone transformations and then
-		// render the model.
+			FabricClothingPart clothingPart, IClothing clothing, BipedModel<?> skeleton, LevelOfDetail lod) {
+		EnumMap<BodyPart, CompiledMesh> bodyPartMap = meshes.get(clothingPart);
+		// Models might not be baked yet
+		if (bodyPartMap == null) return;
+		// For each bone and mesh, apply the bone transformations and then
+		// render the mesh.
 		IVertexBuilder builder = bufferIn.getBuffer(Atlases.getTranslucentBlockType());
-		for (Entry<BodyPart, IBakedModel> entry : bodyPartMap.entrySet()) {
+		for (Entry<BodyPart, CompiledMesh> entry : bodyPartMap.entrySet()) {
+			// Small meshes can't be made out from far away, so skip them
+			if (lod == LevelOfDetail.REDUCED && entry.getValue().getSize() < DETAIL_SIZE) continue;
 			// Apply bone transforms
 			matrixStackIn.push();
 			entry.getKey().getBone(skeleton).translateRotate(matrixStackIn);
-			// Now, render the quads of the model
-			for (BakedQuad quad : entry.getValue().getQuads(null, null, random, EmptyModelData.INSTANCE)) {
-				builder.addQuad(matrixStackIn.getLast(), quad, 1f, 1f, 1f, combinedLightIn, combinedOverlayIn);
-			}
+			// Now, render the whole mesh at once
+			entry.getValue().render(builder, matrixStackIn, 1f, 1f, 1f, 1f, packedLightIn, OverlayTexture.NO_OVERLAY);
+			// Undo the bone transforms before moving on to the next bone
+			matrixStackIn.pop();
 		}
 	}
 
@@ -76,37 +125,77 @@ public class FabricPartRenderer implements IClothingPartRenderer<FabricClothingP
 		EnumMap<BodyPart, BlockModel> bodyPartMap = new EnumMap<>(BodyPart.class);
 		for (BodyPart bodyPart : BodyPart.values()) {
 			ResourceLocation modelLocation = getModelLocation(clothingPart, bodyPart);
-			// Only load the model if it exists
-			if (resourceManager.hasResource(modelLocation)) {
-				IResource resource = resourceManager.getResource(modelLocation);
-				Reader reader = new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8);
-				// Load model
-				bodyPartMap.put(bodyPart, BlockModel.deserialize(reader));
-			}
+			// Only use the model if it exists
+			BlockModel model = loadModel(resourceManager, modelLocation);
+			if (model != null) bodyPartMap.put(bodyPart, model);
 		}
 		// Put body part map into main map
 		unbakedModels.put(clothingPart, bodyPartMap);
 	}
+
+	/**
+	 * Loads a model, reusing the JSON parsed on the last reload if the file is the same.
+	 * @return The model, or null if there is no such file
+	 */
+	@Nullable
+	private BlockModel loadModel(IResourceManager resourceManager, ResourceLocation modelLocation) throws IOException {
+		// Just try to open the file, since checking if it exists first would look it up twice
+		byte[] contents;
+		try (IResource resource = resourceManager.getResource(modelLocation)) {
+			contents = ByteStreams.toByteArray(resource.getInputStream());
+		} catch (FileNotFoundException e) {
+			parsedModels.remove(modelLocation);
+			return null;
+		}
+		// Only parse the file if it changed
+		HashCode hash = Hashing.murmur3_128().hashBytes(contents);
+		ParsedModel parsed = parsedModels.get(modelLocation);
+		if (parsed == null || !parsed.hash.equals(hash)) {
+			Reader reader = new InputStreamReader(new ByteArrayInputStream(contents), StandardCharsets.UTF_8);
+			parsed = new ParsedModel(hash, new JsonParser().parse(reader));
+			parsedModels.put(modelLocation, parsed);
+		}
+		// Read the model the same way BlockModel.deserialize does
+		return ExpandedBlockModelDeserializer.INSTANCE.fromJson(parsed.json, BlockModel.class);
+	}
 	
 	@SuppressWarnings("resource")
 	private void bakeModels(ModelBakery bakery) {
 		// For each unbaked model, bake it
+		Map<FabricClothingPart, EnumMap<BodyPart, CompiledMesh>> meshes = new HashMap<>();
+		Set<ResourceLocation> loadedLocations = new HashSet<>();
 		for (Entry<FabricClothingPart, EnumMap<BodyPart, BlockModel>> entry : unbakedModels.entrySet()) {
 
-			EnumMap<BodyPart, IBakedModel> bodyPartMap = new EnumMap<>(BodyPart.class);
+			EnumMap<BodyPart, CompiledMesh> bodyPartMap = new EnumMap<>(BodyPart.class);
 			for (Entry<BodyPart, BlockModel> subEntry : entry.getValue().entrySet()) {
 				ResourceLocation modelLocation = getModelLocation(entry.getKey(), subEntry.getKey());
+				loadedLocations.add(modelLocation);
 				BlockModel model = subEntry.getValue();
 				IBakedModel bakedModel = model.bakeModel(bakery, model, bakery.getSpriteMap()::getSprite, SimpleModelTransform.IDENTITY, modelLocation, true);
-				bodyPartMap.put(subEntry.getKey(), bakedModel);
+				bodyPartMap.put(subEntry.getKey(), compileModel(bakedModel));
 			}
 			
-			bakedModels.put(entry.getKey(), bodyPartMap);
+			meshes.put(entry.getKey(), bodyPartMap);
 		}
-		// Clear unbaked models to save memory?
+		this.meshes = meshes;
+		// Forget files which weren't loaded this time, like those of parts which are gone
+		parsedModels.keySet().retainAll(loadedLocations);
 		unbakedModels.clear();
 	}
 	
+	/**
+	 * Compiles all of a baked model's quads into one mesh.
+	 * Clothing is never culled against anything, so the quads of every side are
+	 * included.
+	 */
+	private CompiledMesh compileModel(IBakedModel bakedModel) {
+		List<BakedQuad> quads = new ArrayList<>(bakedModel.getQuads(null, null, random, EmptyModelData.INSTANCE));
+		for (Direction side : Direction.values()) {
+			quads.addAll(bakedModel.getQuads(null, side, random, EmptyModelData.INSTANCE));
+		}
+		return new CompiledMesh(quads);
+	}
+	
 	private ResourceLocation getModelLocation(FabricClothingPart part, BodyPart bodyPart) {
 		ResourceLocation id = part.getRegistryName();
 		String bodyPartPath = bodyPart.toString().toLowerCase();
@@ -0,0 +1,42 @@
+package spinyq.spinytextiles.client.render;
+
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.api.distmarker.OnlyIn;
+
+/**
+ * How much detail to render something with, based on how far away it is.
+ * The distances of each band are set in ClientConfig. They are passed in rather
+ * than read here, so callers can read them once per frame.
+ * @author SpinyQ
+ *
+ */
+@OnlyIn(Dist.CLIENT)
+public enum LevelOfDetail {
+
+	// Everything is rendered
+	FULL,
+	// Small details are left out
+	REDUCED,
+	// Nothing is rendered
+	NONE;
+
+	/**
+	 * Picks the level of detail for something at a distance.
+	 *
+	 * @param distanceSq      The squared distance to the camera
+	 * @param reducedDistance The distance in blocks past which details are left out
+	 * @param maxDistance     The distance in blocks past which nothing is rendered
+	 */
+	public static LevelOfDetail of(double distanceSq, int reducedDistance, int maxDistance) {
+		if (distanceSq > square(maxDistance))
+			return NONE;
+		if (distanceSq > square(reducedDistance))
+			return REDUCED;
+		return FULL;
+	}
+
+	private static double square(int distance) {
+		return (double) distance * distance;
+	}
+
+}
@@ -0,0 +1,83 @@
+package spinyq.spinytextiles.client.render;
+
+import java.util.List;
+import java.util.SortedMap;
+import java.util.function.Supplier;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.google.common.collect.ImmutableList;
+
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.renderer.BufferBuilder;
+import net.minecraft.client.renderer.RenderType;
+import net.minecraft.client.renderer.RenderTypeBuffers;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.api.distmarker.OnlyIn;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.DeferredWorkQueue;
+import net.minecraftforge.fml.common.Mod.EventBusSubscriber;
+import net.minecraftforge.fml.common.Mod.EventBusSubscriber.Bus;
+import net.minecraftforge.fml.common.ObfuscationReflectionHelper;
+import net.minecraftforge.fml.event.lifecycle.FMLClientSetupEvent;
+
+/**
+ * Keeps track of the render types used by the mod's renderers.
+ * Each render type is given its own fixed buffer in the game's buffer source.
+ * Everything drawn with a type then ends up in a single batch, which is drawn once
+ * per frame, instead of the shared buffer being flushed every time a renderer
+ * switches types.
+ * @author SpinyQ
+ *
+ */
+@OnlyIn(Dist.CLIENT)
+@EventBusSubscriber(value = Dist.CLIENT, bus = Bus.MOD)
+public class ModRenderTypes {
+
+	private static final Logger LOGGER = LogManager.getLogger();
+
+	// SRG name of RenderTypeBuffers.fixedBuffers
+	private static final String FIXED_BUFFERS_FIELD = "field_228480_b_";
+
+	private static final List<Supplier<RenderType>> TYPES = ImmutableList.of(CuboidRenderType::resizableCuboid,
+			FabricAtlas::renderType);
+
+	@SubscribeEvent
+	public static void onClientSetup(FMLClientSetupEvent event) {
+		// Client setup runs off the main thread, so wait to touch the buffers
+		DeferredWorkQueue.runLater(ModRenderTypes::registerBuffers);
+	}
+
+	private static void registerBuffers() {
+		SortedMap<RenderType, BufferBuilder> fixedBuffers = getFixedBuffers(Minecraft.getInstance().getRenderTypeBuffers());
+		if (fixedBuffers == null) {
+			LOGGER.warn("Couldn't find fixed render buffers. Mod render types will use the shared buffer.");
+			return;
+		}
+		registerBuffers(fixedBuffers);
+	}
+
+	/**
+	 * Gives each of the mod's render types its own buffer in a map of fixed buffers.
+	 */
+	static void registerBuffers(SortedMap<RenderType, BufferBuilder> fixedBuffers) {
+		for (Supplier<RenderType> type : TYPES) {
+			RenderType renderType = type.get();
+			fixedBuffers.put(renderType, new BufferBuilder(renderType.getBufferSize()));
+		}
+	}
+
+	/**
+	 * Finds the map of fixed buffers, which is private.
+	 */
+	private static SortedMap<RenderType, BufferBuilder> getFixedBuffers(RenderTypeBuffers buffers) {
+		try {
+			return ObfuscationReflectionHelper.getPrivateValue(RenderTypeBuffers.class, buffers, FIXED_BUFFERS_FIELD);
+		} catch (RuntimeException e) {
+			LOGGER.warn("Error accessing fixed render buffers", e);
+			return null;
+		}
+	}
+
+}
@@ -29,11 +29,8 @@ import spinyq.spinytextiles.client.model.CuboidModel.UVList;
 import spinyq.spinytextiles.tiles.SpinningWheelTile;
 import spinyq.spinytextiles.tiles.SpinningWheelTile.BaseState;
 import spinyq.spinytextiles.tiles.SpinningWheelTile.BaseState.SpinningState;
-import spinyq.spinytextiles.tiles.SpinningWheelTile.SpinningWheelStateVisitor;
-import spinyq.spinytextiles.utility.FunctionHelper;
-import spinyq.spinytextiles.utility.FunctionHelper.Result;
+import spinyq.spinytextiles.tiles.SpinningWheelTile.SpinningWheelStateFunction;
 import spinyq.spinytextiles.utility.color.RGBAColor;
-import spinyq.spinytextiles.utility.color.RGBColor;
 import spinyq.spinytextiles.utility.color.RYBKColor;
 import spinyq.spinytextiles.utility.textile.Fiber;
 
@@ -52,47 +49,52 @@ public class SpinningWheelRenderer extends TileEntityRenderer<SpinningWheelTile>
 
 	private BakedCuboid threadModel, threadModelSpinning;
 
+	// Reused every frame, since tiles are only rendered on the render thread
+	private final RYBKColor threadColor = new RYBKColor();
+	private final RGBAColor color = new RGBAColor();
+
 	// If the wheel is spinning, interpolate between previous and current threads to
 	// get a smooth animation.
 	// Otherwise, simply use the most current thread info.
-	private final SpinningWheelStateVisitor colorCalculator = new SpinningWheelStateVisitor() {
+	// The result is written to the shared color, which is only valid until the next call.
+	private final SpinningWheelStateFunction<RGBAColor> colorCalculator = new SpinningWheelStateFunction<RGBAColor>() {
 
 		@Override
-		public void visit(BaseState state) {
+		public RGBAColor apply(BaseState state) {
 			Fiber thread = state.getCurrThread();
 
-			RGBColor rgb = thread.color.toRGB(new RGBColor(), null);
-			float alpha = (float) thread.amount / (float) SpinningWheelTile.REQUIRED_THREAD;
-			throw new Result(new RGBAColor(rgb, alpha));
+			thread.color.toRGB(color, null);
+			color.a = (float) thread.amount / (float) SpinningWheelTile.REQUIRED_THREAD;
+			return color;
 		}
 
 		@Override
-		public void visit(BaseState.SpinningState state) {
+		public RGBAColor apply(BaseState.SpinningState state) {
 			// Interpolate both color and thread amount from previous and current thread.
 			// Use the time supplied by the spinning state to interpolate
 			Fiber curr = ((BaseState) state.getSuperState()).getCurrThread(),
 					prev = ((BaseState) state.getSuperState()).getPrevThread();
 			float p = Math.min(1.0f, (float) state.getTime() / (float) SpinningWheelTile.SPINNING_TIME);
-			RYBKColor threadColor = prev.color.interp(curr.color, p);
+			threadColor.setAll(prev.color).interpTo(curr.color, p);
 			float threadAmount = MathHelper.lerp(p, (float) prev.amount, (float) curr.amount);
 
-			RGBColor rgb = threadColor.toRGB(new RGBColor(), null);
-			float alpha = threadAmount / (float) SpinningWheelTile.REQUIRED_THREAD;
-			throw new Result(new RGBAColor(rgb, alpha));
+			threadColor.toRGB(color, null);
+			color.a = threadAmount / (float) SpinningWheelTile.REQUIRED_THREAD;
+			return color;
 		}
 
 	};
 	
-	private final SpinningWheelStateVisitor threadModelGetter = new SpinningWheelStateVisitor() {
+	private final SpinningWheelStateFunction<BakedCuboid> threadModelGetter = new SpinningWheelStateFunction<BakedCuboid>() {
 
 		@Override
-		public void visit(BaseState state) {
-			throw new Result(threadModel);
+		public BakedCuboid apply(BaseState state) {
+			return threadModel;
 		}
 
 		@Override
-		public void visit(SpinningState state) {
-			throw new Result(threadModelSpinning);
+		public BakedCuboid apply(SpinningState state) {
+			return threadModelSpinning;
 		}
 		
 	};
@@ -136,31 +138,24 @@ public class SpinningWheelRenderer extends TileEntityRenderer<SpinningWheelTile>
 	public void render(SpinningWheelTile tileEntityIn, float partialTicks, MatrixStack matrixStackIn,
 			IRenderTypeBuffer renderer, int combinedLightIn, int combinedOverlayIn) {
 
-		SpinningWheelStateVisitor spinningWheelRenderer = new SpinningWheelStateVisitor() {
-
-			@Override
-			public void visit(BaseState state) {
-				// Get thread color
-				RGBAColor color = FunctionHelper.getResult(() -> tileEntityIn.accept(colorCalculator));
-				// Rotate based on blockstate
-				// Also have to center model
-				matrixStackIn.push();
-				matrixStackIn.translate(0.5, 0.5, 0.5);
-				Direction facing = tileEntityIn.getBlockState().get(SpinningWheelBlock.FACING);
-				Quaternion quat = new Quaternion(Direction.UP.toVector3f(), facing.getHorizontalAngle(), true);
-				matrixStackIn.rotate(quat);
-				// Get the thread model based on current state
-				BakedCuboid model = FunctionHelper.getResult(() -> tileEntityIn.accept(threadModelGetter));
-				// Allocate buffer and render model
-				IVertexBuilder buffer = renderer.getBuffer(CuboidRenderType.resizableCuboid());
-				model.render(buffer, matrixStackIn, color, combinedLightIn, combinedOverlayIn);
-				// Undo rotation
-				matrixStackIn.pop();
-			}
-
-		};
-
-		tileEntityIn.accept(spinningWheelRenderer);
+		// Get thread color
+		// Only wheels in the base state have a thread, so there is nothing to render otherwise
+		RGBAColor color = tileEntityIn.apply(colorCalculator);
+		if (color == null) return;
+		// Rotate based on blockstate
+		// Also have to center model
+		matrixStackIn.push();
+		matrixStackIn.translate(0.5, 0.5, 0.5);
+		Direction facing = tileEntityIn.getBlockState().get(SpinningWheelBlock.FACING);
+		Quaternion quat = new Quaternion(Direction.UP.toVector3f(), facing.getHorizontalAngle(), true);
+		matrixStackIn.rotate(quat);
+		// Get the thread model based on current state
+		BakedCuboid model = tileEntityIn.apply(threadModelGetter);
+		// Allocate buffer and render model
+		IVertexBuilder buffer = renderer.getBuffer(CuboidRenderType.resizableCuboid());
+		model.render(buffer, matrixStackIn, color, combinedLightIn, combinedOverlayIn);
+		// Undo rotation
+		matrixStackIn.pop();
 
 	}
 }
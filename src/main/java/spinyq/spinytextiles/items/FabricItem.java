@@ -1,8 +1,6 @@
 package spinyq.spinytextiles.items;
 
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 import com.google.common.collect.ImmutableList;
 
@@ -11,6 +9,7 @@ import net.minecraft.entity.player.PlayerInventory;
 import net.minecraft.item.Item;
 import net.minecraft.item.ItemGroup;
 import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.CompoundNBT;
 import net.minecraft.util.NonNullList;
 import net.minecraft.util.text.ITextComponent;
 import net.minecraft.util.text.TextFormatting;
@@ -23,17 +22,16 @@ import net.minecraftforge.eventbus.api.SubscribeEvent;
 import net.minecraftforge.fml.javafmlmod.FMLJavaModLoadingContext;
 import net.minecraftforge.registries.IForgeRegistry;
 import spinyq.spinytextiles.utility.ContainedItemStack;
-import spinyq.spinytextiles.utility.NBTHelper;
-import spinyq.spinytextiles.utility.NBTHelper.CalculatedValue;
 import spinyq.spinytextiles.utility.color.ColorWord;
-import spinyq.spinytextiles.utility.color.RGBColor;
 import spinyq.spinytextiles.utility.color.RYBKColor;
 import spinyq.spinytextiles.utility.registry.LazyForgeRegistry;
 import spinyq.spinytextiles.utility.textile.IBleachProvider;
 import spinyq.spinytextiles.utility.textile.IDyeProvider;
 import spinyq.spinytextiles.utility.textile.fabric.Fabric;
 import spinyq.spinytextiles.utility.textile.fabric.FabricPattern;
+import spinyq.spinytextiles.utility.textile.fabric.FabricSnapshot;
 import spinyq.spinytextiles.utility.textile.fabric.IFabric;
+import spinyq.spinytextiles.utility.textile.fabric.IFabricView;
 import spinyq.spinytextiles.utility.textile.fabric.NBTFabric;
 
 public class FabricItem extends Item implements IDyeableItem, IBleachableItem {
@@ -45,7 +43,6 @@ public class FabricItem extends Item implements IDyeableItem, IBleachableItem {
 			new RYBKColor(0f, 0f, 1f, 0.5f),
 			new RYBKColor(0f, 0f, 1f, 0.5f));
 	
-	private Map<Integer, CalculatedValue<ColorWord>> closestColorWordMap = new HashMap<>();
 	// The costs to dye/bleach a fabric item, applied for each layer
 	private int layerDyeCost = 1, layerBleachCost = 1;
 	
@@ -53,12 +50,23 @@ public class FabricItem extends Item implements IDyeableItem, IBleachableItem {
 		return new NBTFabric(stack.getOrCreateTag());
 	}
 	
+	/**
+	 * Returns a read-only copy of the fabric info attached to an item stack.
+	 * Unlike getFabric, this doesn't decode the NBT every time it is called, so this
+	 * should be preferred whenever the fabric info is only being read.
+	 * @return The fabric info, or null if the stack doesn't have any
+	 */
+	public FabricSnapshot getFabricSnapshot(ItemStack stack) {
+		CompoundNBT nbt = stack.getTag();
+		return (nbt == null) ? null : FabricSnapshot.of(nbt);
+	}
+	
 	@Override
 	public ITextComponent getDisplayName(ItemStack stack) {
 		// Construct some additional arugments to pass to the text component
 		// These are optionally used by the localization files to format stuff
 		// We pass the fabric pattern description but only if we have fabric info
-		IFabric fabric = getFabric(stack);
+		IFabricView fabric = getFabricSnapshot(stack);
 		if (fabric != null) {
 			FabricPattern pattern = fabric.getPattern();
 			return new TranslationTextComponent(getTranslationKey(stack),
@@ -78,12 +86,12 @@ public class FabricItem extends Item implements IDyeableItem, IBleachableItem {
 		// Register a color handler for all fabric items.
 		// The color handler makes it so each layer of the item is rendered with the right color.
 		event.getItemColors().register((stack, tintIndex) -> {
-				IFabric fabric = getFabric(stack);
+				FabricSnapshot fabric = getFabricSnapshot(stack);
 				// Only return a color if the fabric info is non-null
 				// If it is null, return -1 (white)
-				if (fabric != null) {
-					// Look up the color using the tint index
-					return fabric.getLayerColor(tintIndex).toRGB(new RGBColor(), null).toInt();
+				if (fabric != null && tintIndex < fabric.getLayerCount()) {
+					// Look up the rendered color using the tint index
+					return fabric.getRGBLayerColor(tintIndex);
 				}
 				return -1;
 			}, this);
@@ -109,9 +117,6 @@ public class FabricItem extends Item implements IDyeableItem, IBleachableItem {
 			// If the provider has enough dye, proceed to dye the layer
 			if (provider.drain(layerDyeCost)) {
 				fabric.setLayerColor(layerIndex, newColor);
-				// Also mark the layer's closest color word as dirty,
-				// so we know to recalculate it
-				getClosestColorWord(layerIndex).markDirty(stack.getStack());
 				return true;
 			}
 			return false;
@@ -152,9 +157,6 @@ public class FabricItem extends Item implements IDyeableItem, IBleachableItem {
 			// If the provider has enough bleach, proceed to bleach the layer
 			if (provider.drain(layerBleachCost)) {
 				fabric.setLayerColor(layerIndex, newColor);
-				// Also mark the layer's closest color word as dirty,
-				// so we know to recalculate it
-				getClosestColorWord(layerIndex).markDirty(stack.getStack());
 				return true;
 			}
 			return false;
@@ -189,7 +191,7 @@ public class FabricItem extends Item implements IDyeableItem, IBleachableItem {
 	@OnlyIn(Dist.CLIENT)
 	public void addInformation(ItemStack stack, World worldIn, List<ITextComponent> tooltip, ITooltipFlag flagIn) {
 		// Only add more info if we have fabric data attached
-		IFabric fabric = getFabric(stack);
+		FabricSnapshot fabric = getFabricSnapshot(stack);
 		if (fabric != null) {
 			// Iterate over each layer of the fabric's pattern
 			// For each layer, get the closest color word
@@ -197,7 +199,7 @@ public class FabricItem extends Item implements IDyeableItem, IBleachableItem {
 			FabricPattern pattern = fabric.getPattern();
 			String colorInfoTranslationKey = getTranslationKey() + ".color_info";
 			pattern.getLayerIndexStream().forEach((layerIndex) -> {
-				ColorWord closestColorWord = getClosestColorWord(layerIndex).get(stack);
+				ColorWord closestColorWord = fabric.getClosestColorWord(layerIndex);
 				// Construct tooltip line
 				// We pass the layer's name and the color's name as parameters
 				tooltip.add(new TranslationTextComponent(colorInfoTranslationKey,
@@ -208,31 +210,6 @@ public class FabricItem extends Item implements IDyeableItem, IBleachableItem {
 		}
 	}
 
-	// Retrieves the color word closest to the color of a given layer.
-	// We use CalculatedValue because it automatically caches the value for us,
-	// so we don't have to recompute it each time, as determining the
-	// closest color is a slightly expensive operation.
-	private CalculatedValue<ColorWord> getClosestColorWord(int layerIndex) {
-		// Try to look up our calculated value.
-		// If it doesn't exist, we have to create it.
-		// We also store it in the cache after creating it.
-		CalculatedValue<ColorWord> value = closestColorWordMap.get(layerIndex);
-		if (value == null) {
-			String tag = "ColorWord" + String.valueOf(layerIndex);
-			value = NBTHelper.createCalculatedEnumValue(
-					tag, ColorWord.class,
-					(item) -> {
-						// Get color of layer, then get closest color word to color
-						IFabric fabric = getFabric(item);
-						return ColorWord.getClosest(fabric.getLayerColor(layerIndex));
-					});
-			// Store the calculated value in our map
-			closestColorWordMap.put(layerIndex, value);
-		}
-		// Finally, use the calculated value to retrieve the closest color word
-		return value;
-	}
-
 	private ItemStack createDefaultFabricItem(FabricPattern pattern) {
 		// Construct a new itemstack and start creating fabric
 		ItemStack item = new ItemStack(this);
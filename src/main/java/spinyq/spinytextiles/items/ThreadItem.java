@@ -6,6 +6,7 @@ import net.minecraft.entity.player.PlayerInventory;
 import net.minecraft.item.Item;
 import net.minecraft.item.ItemGroup;
 import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.CompoundNBT;
 import net.minecraft.util.NonNullList;
 import net.minecraft.util.text.ITextComponent;
 import net.minecraft.util.text.TranslationTextComponent;
@@ -14,9 +15,10 @@ import net.minecraftforge.eventbus.api.SubscribeEvent;
 import net.minecraftforge.fml.javafmlmod.FMLJavaModLoadingContext;
 import spinyq.spinytextiles.utility.ContainedItemStack;
 import spinyq.spinytextiles.utility.NBTHelper;
+import spinyq.spinytextiles.utility.NBTHelper.CalculatedIntValue;
 import spinyq.spinytextiles.utility.NBTHelper.CalculatedValue;
+import spinyq.spinytextiles.utility.color.ColorPalette;
 import spinyq.spinytextiles.utility.color.ColorWord;
-import spinyq.spinytextiles.utility.color.RGBColor;
 import spinyq.spinytextiles.utility.color.RYBKColor;
 import spinyq.spinytextiles.utility.textile.IBleachProvider;
 import spinyq.spinytextiles.utility.textile.IDyeProvider;
@@ -25,11 +27,17 @@ public class ThreadItem extends Item implements IDyeableItem, IBleachableItem {
 
 	private static final String COLOR_TAG = "Color";
 	private static final String COLOR_WORD_TAG = "ColorWord";
+	private static final String RGB_TAG = "RGB";
 
-	private CalculatedValue<ColorWord> closestColorWord = NBTHelper.createCalculatedEnumValue(COLOR_WORD_TAG,
-			ColorWord.class, (item) -> {
+	private CalculatedValue<ColorWord> closestColorWord = NBTHelper.createCalculatedValue(COLOR_WORD_TAG,
+			ColorPalette::getCurrentGeneration, (item) -> {
 				return ColorWord.getClosest(getColor(item));
 			});
+	// The color of the thread as it is rendered, so the color handler doesn't
+	// have to convert it every frame
+	private CalculatedIntValue rgbColor = NBTHelper.createCalculatedIntValue(RGB_TAG, (item) -> {
+		return getColor(item).toRGBInt(null);
+	});
 
 	private int dyeCost = 1, bleachCost = 1;
 
@@ -48,7 +56,7 @@ public class ThreadItem extends Item implements IDyeableItem, IBleachableItem {
 		event.getItemColors().register((stack, tintIndex) -> {
 			// For the thread layer, return the color of the thread
 			if (tintIndex == 1)
-				return getColor(stack).toRGB(new RGBColor(), null).toInt();
+				return rgbColor.get(stack);
 			// For all other layers, return -1 (white)
 			return -1;
 		}, this);
@@ -67,7 +75,7 @@ public class ThreadItem extends Item implements IDyeableItem, IBleachableItem {
 	@Override
 	public void fillItemGroup(ItemGroup group, NonNullList<ItemStack> items) {
 		if (this.isInGroup(group)) {
-			for (ColorWord colorWord : ColorWord.values()) {
+			for (ColorWord colorWord : ColorWord.getDefaults()) {
 				// Create itemstack and add it
 				ItemStack stack = new ItemStack(this);
 				setColor(stack, colorWord.color);
@@ -87,14 +95,19 @@ public class ThreadItem extends Item implements IDyeableItem, IBleachableItem {
 	}
 
 	public void setColor(ItemStack item, RYBKColor color) {
-		// If new color is different from old color, mark translation key as dirty
-		if (!Objects.equal(color, getColor(item)))
+		// If new color is different from old color, mark translation key
+		// and rendered color as dirty
+		if (!Objects.equal(color, getColor(item))) {
 			closestColorWord.markDirty(item);
+			rgbColor.markDirty(item);
+		}
 		NBTHelper.put(item.getOrCreateTag(), COLOR_TAG, color);
 	}
 
 	public RYBKColor getColor(ItemStack item) {
-		return NBTHelper.getOrNull(RYBKColor::new, item.getOrCreateTag(), COLOR_TAG);
+		// Don't create a tag just to read from it
+		CompoundNBT nbt = item.getTag();
+		return (nbt == null) ? null : NBTHelper.getOrNull(RYBKColor::new, nbt, COLOR_TAG);
 	}
 
 	@Override
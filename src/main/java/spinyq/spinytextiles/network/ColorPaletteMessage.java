@@ -0,0 +1,54 @@
+package spinyq.spinytextiles.network;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import net.minecraft.network.PacketBuffer;
+import net.minecraftforge.fml.network.NetworkEvent;
+import spinyq.spinytextiles.utility.color.ColorPalette;
+import spinyq.spinytextiles.utility.color.ColorWord;
+import spinyq.spinytextiles.utility.color.RYBKColor;
+
+/**
+ * Sent by the server to replace the client's color palette,
+ * so that color words are the same on both sides.
+ * @author SpinyQ
+ *
+ */
+public class ColorPaletteMessage {
+
+	private final List<ColorWord> words;
+
+	public ColorPaletteMessage(ColorPalette palette) {
+		this(palette.getWords());
+	}
+
+	private ColorPaletteMessage(List<ColorWord> words) {
+		this.words = words;
+	}
+
+	public static void encode(ColorPaletteMessage message, PacketBuffer buffer) {
+		buffer.writeVarInt(message.words.size());
+		for (ColorWord word : message.words) {
+			buffer.writeResourceLocation(word.getName());
+			buffer.writeInt(word.color.toInt());
+		}
+	}
+
+	public static ColorPaletteMessage decode(PacketBuffer buffer) {
+		int size = buffer.readVarInt();
+		List<ColorWord> words = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			words.add(new ColorWord(buffer.readResourceLocation(), new RYBKColor().fromInt(buffer.readInt())));
+		}
+		return new ColorPaletteMessage(words);
+	}
+
+	public static void handle(ColorPaletteMessage message, Supplier<NetworkEvent.Context> context) {
+		// Swap out the palette on the main thread
+		context.get().enqueueWork(() -> ColorPalette.setCurrent(new ColorPalette(message.words)));
+		context.get().setPacketHandled(true);
+	}
+
+}
@@ -0,0 +1,79 @@
+package spinyq.spinytextiles.network;
+
+import java.util.function.Supplier;
+
+import io.netty.buffer.Unpooled;
+import net.minecraft.network.PacketBuffer;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.tileentity.TileEntityType;
+import net.minecraft.util.math.BlockPos;
+import net.minecraftforge.fml.LogicalSidedProvider;
+import net.minecraftforge.fml.network.NetworkEvent;
+import net.minecraftforge.registries.ForgeRegistries;
+import net.minecraftforge.registries.ForgeRegistry;
+import spinyq.spinytextiles.tiles.SyncedTile;
+
+/**
+ * Sent by the server when some fields of a tile change.
+ * Only the changed fields are sent, in the tile's own binary layout.
+ * The tile's type is sent too, so the fields are never read by a different tile
+ * that has replaced it on the client.
+ * @author SpinyQ
+ *
+ */
+public class DeltaUpdateMessage {
+
+	// Tile entity types are synced to the client by Forge, so their IDs match on both sides
+	private static final ForgeRegistry<TileEntityType<?>> TYPE_REGISTRY = (ForgeRegistry<TileEntityType<?>>) ForgeRegistries.TILE_ENTITIES;
+
+	private final BlockPos pos;
+	private final int typeId;
+	private final int fields;
+	private final byte[] payload;
+
+	public DeltaUpdateMessage(SyncedTile tile, int fields) {
+		this.pos = tile.getPos();
+		this.typeId = TYPE_REGISTRY.getID(tile.getType());
+		this.fields = fields;
+		// Have the tile write the fields into a temporary buffer
+		PacketBuffer buffer = new PacketBuffer(Unpooled.buffer());
+		tile.writeDelta(buffer, fields);
+		this.payload = new byte[buffer.readableBytes()];
+		buffer.readBytes(payload);
+		buffer.release();
+	}
+
+	private DeltaUpdateMessage(BlockPos pos, int typeId, int fields, byte[] payload) {
+		this.pos = pos;
+		this.typeId = typeId;
+		this.fields = fields;
+		this.payload = payload;
+	}
+
+	public static void encode(DeltaUpdateMessage message, PacketBuffer buffer) {
+		buffer.writeBlockPos(message.pos);
+		buffer.writeVarInt(message.typeId);
+		buffer.writeVarInt(message.fields);
+		buffer.writeByteArray(message.payload);
+	}
+
+	public static DeltaUpdateMessage decode(PacketBuffer buffer) {
+		return new DeltaUpdateMessage(buffer.readBlockPos(), buffer.readVarInt(), buffer.readVarInt(),
+				buffer.readByteArray());
+	}
+
+	public static void handle(DeltaUpdateMessage message, Supplier<NetworkEvent.Context> context) {
+		context.get().enqueueWork(() -> {
+			// Apply the fields to the tile, if it is still loaded and is still the same kind of tile
+			LogicalSidedProvider.CLIENTWORLD.get(context.get().getDirection().getReceptionSide()).ifPresent((world) -> {
+				if (!world.isBlockLoaded(message.pos)) return;
+				TileEntity tile = world.getTileEntity(message.pos);
+				if (tile instanceof SyncedTile && TYPE_REGISTRY.getID(tile.getType()) == message.typeId) {
+					((SyncedTile) tile).readDelta(new PacketBuffer(Unpooled.wrappedBuffer(message.payload)), message.fields);
+				}
+			});
+		});
+		context.get().setPacketHandled(true);
+	}
+
+}
@@ -12,9 +12,7 @@ import net.minecraft.item.DyeItem;
 import net.minecraft.item.ItemStack;
 import net.minecraft.item.Items;
 import net.minecraft.nbt.CompoundNBT;
-import net.minecraft.network.NetworkManager;
-import net.minecraft.network.play.server.SUpdateTileEntityPacket;
-import net.minecraft.tileentity.TileEntity;
+import net.minecraft.network.PacketBuffer;
 import net.minecraft.util.ActionResultType;
 import net.minecraft.util.SoundCategory;
 import net.minecraft.util.SoundEvents;
@@ -22,6 +20,7 @@ import net.minecraftforge.common.util.Constants;
 import net.minecraftforge.common.util.INBTSerializable;
 import spinyq.spinytextiles.ModTags;
 import spinyq.spinytextiles.ModTiles;
+import spinyq.spinytextiles.blocks.BasinBlock;
 import spinyq.spinytextiles.items.IBleachableItem;
 import spinyq.spinytextiles.items.IDyeableItem;
 import spinyq.spinytextiles.utility.BlockInteraction;
@@ -29,18 +28,23 @@ import spinyq.spinytextiles.utility.ContainedItemStack;
 import spinyq.spinytextiles.utility.NBTHelper;
 import spinyq.spinytextiles.utility.NBTHelper.ClassIdSpace;
 import spinyq.spinytextiles.utility.NBTHelper.ObjectMapper;
+import spinyq.spinytextiles.utility.color.RGBColor;
 import spinyq.spinytextiles.utility.color.RYBKColor;
 import spinyq.spinytextiles.utility.textile.IBleachProvider;
 import spinyq.spinytextiles.utility.textile.IDyeProvider;
 
-public class BasinTile extends TileEntity {
+public class BasinTile extends SyncedTile {
 
 	public static final int MAX_WATER_LEVEL = 8;
 	public static final float DYE_MULTIPLIER = 0.25f, BLEACH_MULTIPLIER = 0.25f;
+	public static final RGBColor WATER_COLOR = new RGBColor().fromIntString("0x3F76E4");
 
 	private static final String STATE_TAG = "State", WATER_LEVEL_TAG = "Level", COLOR_TAG = "Color",
 			BLEACH_LEVEL_TAG = "Bleach";
 
+	// Fields that can be synced without sending the whole state
+	private static final int LEVEL_FIELD = 1, COLOR_FIELD = 2, BLEACH_FIELD = 4;
+
 	private static final ClassIdSpace CLASSES = new ClassIdSpace(EmptyState.class, FilledState.class,
 			FilledState.WaterState.class, FilledState.DyeState.class, FilledState.BleachState.class);
 
@@ -67,6 +71,39 @@ public class BasinTile extends TileEntity {
 
 	}
 
+	/**
+	 * Allows users to compute an int from basin states, like a color to render.
+	 * The result is an int, so nothing is boxed. States that return NONE are skipped.
+	 * When a state has a substate, the substate is asked first, so the most specific
+	 * state that returns a value wins.
+	 */
+	public interface BasinStateIntFunction {
+
+		// Never a valid color or water level
+		int NONE = Integer.MIN_VALUE;
+
+		default int applyAsInt(EmptyState state) {
+			return NONE;
+		}
+
+		default int applyAsInt(FilledState state) {
+			return NONE;
+		}
+
+		default int applyAsInt(FilledState.WaterState state) {
+			return NONE;
+		}
+
+		default int applyAsInt(FilledState.DyeState state) {
+			return NONE;
+		}
+
+		default int applyAsInt(FilledState.BleachState state) {
+			return NONE;
+		}
+
+	}
+
 	/**
 	 * A state that a basin can occupy. Handles player interactions.
 	 * 
@@ -79,6 +116,8 @@ public class BasinTile extends TileEntity {
 
 		void accept(BasinStateVisitor visitor);
 
+		int applyAsInt(BasinStateIntFunction function);
+
 		@Override
 		default CompoundNBT serializeNBT() {
 			return new CompoundNBT();
@@ -137,6 +176,11 @@ public class BasinTile extends TileEntity {
 			visitor.visit(this);
 		}
 
+		@Override
+		public int applyAsInt(BasinStateIntFunction function) {
+			return function.applyAsInt(this);
+		}
+
 	}
 
 	/**
@@ -176,6 +220,11 @@ public class BasinTile extends TileEntity {
 				visitor.visit(this);
 			}
 
+			@Override
+			public int applyAsInt(BasinStateIntFunction function) {
+				return function.applyAsInt(this);
+			}
+
 		}
 
 		/**
@@ -226,7 +275,7 @@ public class BasinTile extends TileEntity {
 					color = newColor;
 					world.playSound((PlayerEntity) null, pos, SoundEvents.ITEM_BUCKET_EMPTY, SoundCategory.BLOCKS, 1.0F,
 							1.0F);
-					notifyChange();
+					notifyChange(COLOR_FIELD);
 				}
 
 				return true;
@@ -270,6 +319,11 @@ public class BasinTile extends TileEntity {
 				visitor.visit(this);
 			}
 
+			@Override
+			public int applyAsInt(BasinStateIntFunction function) {
+				return function.applyAsInt(this);
+			}
+
 		}
 
 		/**
@@ -317,7 +371,7 @@ public class BasinTile extends TileEntity {
 					bleachLevel = newBleachLevel;
 					world.playSound((PlayerEntity) null, pos, SoundEvents.ITEM_BUCKET_EMPTY, SoundCategory.BLOCKS, 1.0F,
 							1.0F);
-					notifyChange();
+					notifyChange(BLEACH_FIELD);
 				}
 
 				return true;
@@ -360,6 +414,11 @@ public class BasinTile extends TileEntity {
 				visitor.visit(this);
 			}
 
+			@Override
+			public int applyAsInt(BasinStateIntFunction function) {
+				return function.applyAsInt(this);
+			}
+
 		}
 
 		// Water level starts out at maximum
@@ -387,8 +446,10 @@ public class BasinTile extends TileEntity {
 			waterLevel -= amount;
 			if (waterLevel == 0) {
 				BasinTile.this.state = new EmptyState();
+				notifyChange();
+			} else {
+				notifyChange(LEVEL_FIELD);
 			}
-			notifyChange();
 			return true;
 		}
 
@@ -420,8 +481,114 @@ public class BasinTile extends TileEntity {
 			visitor.visit(this);
 		}
 
+		@Override
+		public int applyAsInt(BasinStateIntFunction function) {
+			// Try substate first
+			int result = state.applyAsInt(function);
+			return (result != BasinStateIntFunction.NONE) ? result : function.applyAsInt(this);
+		}
+
 	}
 
+	/**
+	 * Holds the values of the fields that can be synced on their own.
+	 * Visiting a state collects the values of the state's fields.
+	 * Fields are always written in the same order, so a client can still read them
+	 * if its state doesn't match the server's.
+	 */
+	private static class Delta implements BasinStateVisitor {
+
+		private int waterLevel, color;
+		private float bleachLevel;
+
+		@Override
+		public void visit(FilledState state) {
+			waterLevel = state.waterLevel;
+		}
+
+		@Override
+		public void visit(FilledState.DyeState state) {
+			color = state.color.toInt();
+		}
+
+		@Override
+		public void visit(FilledState.BleachState state) {
+			bleachLevel = state.bleachLevel;
+		}
+
+		public void write(PacketBuffer buffer, int fields) {
+			if ((fields & LEVEL_FIELD) != 0)
+				buffer.writeByte(waterLevel);
+			if ((fields & COLOR_FIELD) != 0)
+				buffer.writeInt(color);
+			if ((fields & BLEACH_FIELD) != 0)
+				buffer.writeFloat(bleachLevel);
+		}
+
+		public void read(PacketBuffer buffer, int fields) {
+			if ((fields & LEVEL_FIELD) != 0)
+				waterLevel = buffer.readByte();
+			if ((fields & COLOR_FIELD) != 0)
+				color = buffer.readInt();
+			if ((fields & BLEACH_FIELD) != 0)
+				bleachLevel = buffer.readFloat();
+		}
+
+		/**
+		 * Returns a visitor that copies some fields into any state it visits.
+		 * States that don't have the fields are left alone.
+		 */
+		public BasinStateVisitor applier(int fields) {
+			return new BasinStateVisitor() {
+
+				@Override
+				public void visit(FilledState state) {
+					if ((fields & LEVEL_FIELD) != 0)
+						state.waterLevel = waterLevel;
+				}
+
+				@Override
+				public void visit(FilledState.DyeState state) {
+					if ((fields & COLOR_FIELD) != 0)
+						state.color = new RYBKColor().fromInt(color);
+				}
+
+				@Override
+				public void visit(FilledState.BleachState state) {
+					if ((fields & BLEACH_FIELD) != 0)
+						state.bleachLevel = bleachLevel;
+				}
+
+			};
+		}
+
+	}
+
+	private static final int WATER_COLOR_INT = WATER_COLOR.toInt();
+
+	private static final BasinStateIntFunction FLUID_COLOR = new BasinStateIntFunction() {
+
+		@Override
+		public int applyAsInt(FilledState state) {
+			return WATER_COLOR_INT;
+		}
+
+		@Override
+		public int applyAsInt(FilledState.DyeState state) {
+			return state.getColor().toRGBInt(WATER_COLOR);
+		}
+
+	};
+
+	private static final BasinStateIntFunction WATER_LEVEL = new BasinStateIntFunction() {
+
+		@Override
+		public int applyAsInt(FilledState state) {
+			return state.getWaterLevel();
+		}
+
+	};
+
 	private IBasinState state = new EmptyState();
 	private ObjectMapper mapper = new ObjectMapper(CLASSES).withSupplier(EmptyState.class, EmptyState::new)
 			.withSupplier(FilledState.class, FilledState::new);
@@ -443,59 +610,87 @@ public class BasinTile extends TileEntity {
 		state.accept(visitor);
 	}
 
-	public ActionResultType onInteract(BlockInteraction interaction) {
-		return state.onInteract(interaction);
+	public int applyAsInt(BasinStateIntFunction function) {
+		return state.applyAsInt(function);
 	}
 
-	@Override
-	public void read(CompoundNBT compound) {
-		super.read(compound);
-		// Read state
-		state = NBTHelper.getPolymorphic(compound, STATE_TAG, mapper);
+	/**
+	 * Returns the color of the basin's fluid, used to tint the fluid model.
+	 * 
+	 * @return An integer in hex rgb format, i.e. 0xRRGGBB
+	 */
+	public int getFluidColor() {
+		int color = applyAsInt(FLUID_COLOR);
+		return (color != BasinStateIntFunction.NONE) ? color : WATER_COLOR_INT;
+	}
+
+	/**
+	 * Makes clients re-mesh the basin, since the fluid color is baked into the chunk.
+	 */
+	private void refreshFluid() {
+		if (world != null && world.isRemote) {
+			BlockState blockState = getBlockState();
+			world.notifyBlockUpdate(pos, blockState, blockState, Constants.BlockFlags.RERENDER_MAIN_THREAD);
+		}
+	}
+
+	/**
+	 * Returns the water level of the basin, which is zero if the basin is empty.
+	 */
+	private int getWaterLevel() {
+		int waterLevel = applyAsInt(WATER_LEVEL);
+		return (waterLevel != BasinStateIntFunction.NONE) ? waterLevel : 0;
 	}
 
 	@Override
-	public CompoundNBT write(CompoundNBT compound) {
-		CompoundNBT result = super.write(compound);
-		// Write state
-		NBTHelper.putPolymorphic(result, STATE_TAG, state, mapper);
-		return result;
+	public void onLoad() {
+		super.onLoad();
+		// Older saves didn't copy the water level to the block, so fix it if it doesn't match
+		if (!world.isRemote && getBlockState().get(BasinBlock.LEVEL) != getWaterLevel()) {
+			notifyChange();
+		}
 	}
 
 	@Override
-	public SUpdateTileEntityPacket getUpdatePacket() {
-		CompoundNBT nbtTag = new CompoundNBT();
-		// Write data into the nbtTag
-		write(nbtTag);
-		return new SUpdateTileEntityPacket(getPos(), -1, nbtTag);
+	protected void onSync() {
+		// Copy the water level to the block, so the right fluid model is used
+		int level = getWaterLevel();
+		BlockState blockState = getBlockState();
+		if (blockState.get(BasinBlock.LEVEL) != level) {
+			world.setBlockState(pos, blockState.with(BasinBlock.LEVEL, level), Constants.BlockFlags.BLOCK_UPDATE);
+		}
+	}
+
+	public ActionResultType onInteract(BlockInteraction interaction) {
+		return state.onInteract(interaction);
 	}
 
 	@Override
-	public CompoundNBT getUpdateTag() {
-		CompoundNBT nbtTagCompound = new CompoundNBT();
-		write(nbtTagCompound);
-		return nbtTagCompound;
+	protected void readState(CompoundNBT nbt) {
+		// Read state
+		state = NBTHelper.getPolymorphic(nbt, STATE_TAG, mapper);
+		refreshFluid();
 	}
 
 	@Override
-	public void onDataPacket(NetworkManager net, SUpdateTileEntityPacket pkt) {
-		CompoundNBT tag = pkt.getNbtCompound();
-		// Handle packet
-		read(tag);
+	protected void writeState(CompoundNBT nbt) {
+		// Write state
+		NBTHelper.putPolymorphic(nbt, STATE_TAG, state, mapper);
 	}
 
 	@Override
-	public void handleUpdateTag(CompoundNBT tag) {
-		read(tag);
+	public void writeDelta(PacketBuffer buffer, int fields) {
+		Delta delta = new Delta();
+		state.accept(delta);
+		delta.write(buffer, fields);
 	}
 
-	/**
-	 * Syncs data with clients and marks this tile to be saved.
-	 */
-	private void notifyChange() {
-		BlockState state = getBlockState();
-		world.notifyBlockUpdate(pos, state, state, Constants.BlockFlags.BLOCK_UPDATE);
-		markDirty();
+	@Override
+	public void readDelta(PacketBuffer buffer, int fields) {
+		Delta delta = new Delta();
+		delta.read(buffer, fields);
+		state.accept(delta.applier(fields));
+		refreshFluid();
 	}
 
 }
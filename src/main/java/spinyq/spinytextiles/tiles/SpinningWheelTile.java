@@ -1,18 +1,22 @@
 package spinyq.spinytextiles.tiles;
 
-import net.minecraft.block.BlockState;
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.item.ItemStack;
 import net.minecraft.nbt.CompoundNBT;
-import net.minecraft.network.NetworkManager;
-import net.minecraft.network.play.server.SUpdateTileEntityPacket;
+import net.minecraft.network.PacketBuffer;
 import net.minecraft.tileentity.ITickableTileEntity;
-import net.minecraft.tileentity.TileEntity;
 import net.minecraft.util.ActionResultType;
 import net.minecraft.util.SoundCategory;
 import net.minecraft.util.SoundEvents;
-import net.minecraftforge.common.util.Constants;
+import net.minecraft.util.math.AxisAlignedBB;
+import net.minecraft.util.math.BlockPos;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.api.distmarker.OnlyIn;
 import net.minecraftforge.common.util.INBTSerializable;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod.EventBusSubscriber;
+import spinyq.spinytextiles.ClientConfig;
 import spinyq.spinytextiles.ModItems;
 import spinyq.spinytextiles.ModSounds;
 import spinyq.spinytextiles.ModTiles;
@@ -25,13 +29,16 @@ import spinyq.spinytextiles.utility.NBTHelper.ObjectMapper;
 import spinyq.spinytextiles.utility.color.RYBKColor;
 import spinyq.spinytextiles.utility.textile.Fiber;
 
-public class SpinningWheelTile extends TileEntity implements ITickableTileEntity {
+public class SpinningWheelTile extends SyncedTile implements ITickableTileEntity {
 
 	public static final int SPINNING_TIME = 60, REQUIRED_THREAD = 4;
 
 	private static final String STATE_TAG = "State", FIBER_TAG = "Fiber", PREV_THREAD_TAG = "Prev",
 			CURR_THREAD_TAG = "Curr";
 
+	// Fields that can be synced without sending the whole state
+	private static final int SUBSTATE_FIELD = 1, THREAD_FIELD = 2;
+
 	private static final ClassIdSpace CLASSES = new ClassIdSpace(BaseState.IdleState.class,
 			BaseState.FiberState.class, BaseState.SpinningState.class, BaseState.FinishedState.class);
 
@@ -54,6 +61,35 @@ public class SpinningWheelTile extends TileEntity implements ITickableTileEntity
 
 	}
 
+	/**
+	 * Allows users to compute a value from spinning wheel states.
+	 * States that return null are skipped. The substate is asked before the base
+	 * state, so the most specific state that returns a value wins.
+	 */
+	public static interface SpinningWheelStateFunction<R> {
+
+		default R apply(BaseState state) {
+			return null;
+		}
+
+		default R apply(BaseState.IdleState state) {
+			return null;
+		}
+
+		default R apply(BaseState.FiberState state) {
+			return null;
+		}
+
+		default R apply(BaseState.SpinningState state) {
+			return null;
+		}
+
+		default R apply(BaseState.FinishedState state) {
+			return null;
+		}
+
+	}
+
 	/**
 	 * A state that a spinning wheel may occupy.
 	 * Handles player interactions, ticks, and saving/loading data.
@@ -64,6 +100,8 @@ public class SpinningWheelTile extends TileEntity implements ITickableTileEntity
 
 		void accept(SpinningWheelStateVisitor visitor);
 
+		<R> R apply(SpinningWheelStateFunction<R> function);
+
 		default void onTransitionTo() {
 		}
 
@@ -82,6 +120,18 @@ public class SpinningWheelTile extends TileEntity implements ITickableTileEntity
 		default void deserializeNBT(CompoundNBT nbt) {
 		}
 
+		/**
+		 * Writes any data needed to sync the state with clients.
+		 */
+		default void writeDelta(PacketBuffer buffer) {
+		}
+
+		/**
+		 * Reads data written by writeDelta.
+		 */
+		default void readDelta(PacketBuffer buffer) {
+		}
+
 	}
 
 	/**
@@ -109,7 +159,7 @@ public class SpinningWheelTile extends TileEntity implements ITickableTileEntity
 						Fiber fiber = fiberItem.getFiber(interaction.itemstack.split(1));
 						// Transition to FiberState
 						transition(new FiberState(fiber));
-						notifyChange();
+						notifyChange(SUBSTATE_FIELD);
 					}
 					// Play fun wool sound
 					world.playSound((PlayerEntity) null, pos, SoundEvents.BLOCK_WOOL_PLACE, SoundCategory.BLOCKS, 1.0F,
@@ -124,6 +174,11 @@ public class SpinningWheelTile extends TileEntity implements ITickableTileEntity
 				visitor.visit(this);
 			}
 
+			@Override
+			public <R> R apply(SpinningWheelStateFunction<R> function) {
+				return function.apply(this);
+			}
+
 		}
 
 		/**
@@ -152,7 +207,7 @@ public class SpinningWheelTile extends TileEntity implements ITickableTileEntity
 					prevThread = currThread;
 					currThread = currThread.combine(fiber);
 					transition(new SpinningState());
-					notifyChange();
+					notifyChange(SUBSTATE_FIELD | THREAD_FIELD);
 				}
 				// Play a fun spinning sound
 				world.playSound((PlayerEntity) null, pos, ModSounds.BLOCK_SPINNING_WHEEL_SPIN.get(),
@@ -165,6 +220,11 @@ public class SpinningWheelTile extends TileEntity implements ITickableTileEntity
 				visitor.visit(this);
 			}
 
+			@Override
+			public <R> R apply(SpinningWheelStateFunction<R> function) {
+				return function.apply(this);
+			}
+
 			@Override
 			public CompoundNBT serializeNBT() {
 				CompoundNBT nbt = new CompoundNBT();
@@ -178,6 +238,16 @@ public class SpinningWheelTile extends TileEntity implements ITickableTileEntity
 				fiber.deserializeNBT(nbt.getCompound(FIBER_TAG));
 			}
 
+			@Override
+			public void writeDelta(PacketBuffer buffer) {
+				fiber.write(buffer);
+			}
+
+			@Override
+			public void readDelta(PacketBuffer buffer) {
+				fiber = new Fiber().read(buffer);
+			}
+
 		}
 
 		/**
@@ -204,7 +274,7 @@ public class SpinningWheelTile extends TileEntity implements ITickableTileEntity
 				// If not, go back to an idle state.
 				if (timer == SPINNING_TIME) {
 					transition((getCurrThread().amount >= REQUIRED_THREAD) ? new FinishedState() : new IdleState());
-					notifyChange();
+					notifyChange(SUBSTATE_FIELD);
 				}
 			}
 
@@ -213,6 +283,11 @@ public class SpinningWheelTile extends TileEntity implements ITickableTileEntity
 				visitor.visit(this);
 			}
 
+			@Override
+			public <R> R apply(SpinningWheelStateFunction<R> function) {
+				return function.apply(this);
+			}
+
 			@Override
 			public ActionResultType onInteract(BlockInteraction interaction) {
 				return ActionResultType.PASS;
@@ -260,7 +335,7 @@ public class SpinningWheelTile extends TileEntity implements ITickableTileEntity
 						}
 						// Reset the spinning wheel's state
 						SpinningWheelTile.this.state = new BaseState();
-						notifyChange();
+						notifyChange(SUBSTATE_FIELD | THREAD_FIELD);
 					}
 					// Play a fun pop sound
 					world.playSound((PlayerEntity) null, pos, SoundEvents.ENTITY_ITEM_PICKUP, SoundCategory.BLOCKS,
@@ -275,6 +350,11 @@ public class SpinningWheelTile extends TileEntity implements ITickableTileEntity
 				visitor.visit(this);
 			}
 
+			@Override
+			public <R> R apply(SpinningWheelStateFunction<R> function) {
+				return function.apply(this);
+			}
+
 		}
 
 		// Create an object mapper to serialize/deserialize the substate
@@ -337,6 +417,13 @@ public class SpinningWheelTile extends TileEntity implements ITickableTileEntity
 			visitor.visit(this);
 		}
 
+		@Override
+		public <R> R apply(SpinningWheelStateFunction<R> function) {
+			// Try substate first
+			R result = state.apply(function);
+			return (result != null) ? result : function.apply(this);
+		}
+
 		@Override
 		public CompoundNBT serializeNBT() {
 			// Write the previous thread, which may be null
@@ -357,24 +444,88 @@ public class SpinningWheelTile extends TileEntity implements ITickableTileEntity
 			transition(NBTHelper.getPolymorphic(nbt, STATE_TAG, mapper));
 		}
 
+		public void writeDelta(PacketBuffer buffer, int fields) {
+			if ((fields & THREAD_FIELD) != 0) {
+				// The previous thread may be null
+				buffer.writeBoolean(prevThread != null);
+				if (prevThread != null)
+					prevThread.write(buffer);
+				currThread.write(buffer);
+			}
+			if ((fields & SUBSTATE_FIELD) != 0) {
+				// Write the substate's type, then its data
+				buffer.writeVarInt(mapper.getId(state));
+				state.writeDelta(buffer);
+			}
+		}
+
+		public void readDelta(PacketBuffer buffer, int fields) {
+			if ((fields & THREAD_FIELD) != 0) {
+				prevThread = buffer.readBoolean() ? new Fiber().read(buffer) : null;
+				currThread = new Fiber().read(buffer);
+			}
+			if ((fields & SUBSTATE_FIELD) != 0) {
+				// Create the new substate and transition to it
+				ISpinningWheelState newState = (ISpinningWheelState) mapper.createObject(buffer.readVarInt());
+				newState.readDelta(buffer);
+				transition(newState);
+			}
+		}
+
+	}
+
+	/**
+	 * Reads the spinning wheel's render distance from the config once per frame,
+	 * so it isn't read again for every spinning wheel.
+	 * @author SpinyQ
+	 *
+	 */
+	@OnlyIn(Dist.CLIENT)
+	@EventBusSubscriber(value = Dist.CLIENT)
+	public static final class FrameDistance {
+
+		private static double maxDistanceSquared;
+
+		@SubscribeEvent
+		public static void onRenderTick(TickEvent.RenderTickEvent event) {
+			if (event.phase != TickEvent.Phase.START) return;
+			double distance = ClientConfig.INSTANCE.spinningWheelDistance.get();
+			maxDistanceSquared = distance * distance;
+		}
+
 	}
 
 	private BaseState state;
+	// Kept, since the game asks for the box of every tile every frame
+	private AxisAlignedBB renderBoundingBox;
 
 	public SpinningWheelTile() {
 		super(ModTiles.SPINNING_WHEEL_TILE.get());
 		transition(new BaseState());
 	}
 
-	/**
-	 * Syncs data with clients and marks this tile to be saved.
-	 */
-	private void notifyChange() {
-		BlockState state = getBlockState();
-		world.notifyBlockUpdate(pos, state, state, Constants.BlockFlags.BLOCK_UPDATE);
-		markDirty();
+	@Override
+	@OnlyIn(Dist.CLIENT)
+	public AxisAlignedBB getRenderBoundingBox() {
+		// The thread never leaves the block
+		if (renderBoundingBox == null) renderBoundingBox = new AxisAlignedBB(pos);
+		return renderBoundingBox;
+	}
+
+	@Override
+	public void setPos(BlockPos posIn) {
+		super.setPos(posIn);
+		// The render bounding box depends on the position
+		renderBoundingBox = null;
+	}
+
+	@Override
+	@OnlyIn(Dist.CLIENT)
+	public double getMaxRenderDistanceSquared() {
+		// The thread is all the renderer draws, so it can stop rendering as soon as the thread is too far away
+		return FrameDistance.maxDistanceSquared;
 	}
-	
+
 	public void transition(BaseState state) {
 		// Trigger callbacks
 		if (this.state != null)
@@ -391,53 +542,37 @@ public class SpinningWheelTile extends TileEntity implements ITickableTileEntity
 		state.accept(visitor);
 	}
 
+	public <R> R apply(SpinningWheelStateFunction<R> function) {
+		return state.apply(function);
+	}
+
 	@Override
 	public void tick() {
 		state.tick();
 	}
 
 	@Override
-	public void read(CompoundNBT compound) {
-		super.read(compound);
+	protected void readState(CompoundNBT nbt) {
 		// Read the new state and transition to it
 		BaseState state = new BaseState();
-		state.deserializeNBT(compound.getCompound(STATE_TAG));
+		state.deserializeNBT(nbt.getCompound(STATE_TAG));
 		transition(state);
 	}
 
 	@Override
-	public CompoundNBT write(CompoundNBT compound) {
-		CompoundNBT result = super.write(compound);
+	protected void writeState(CompoundNBT nbt) {
 		// Write the state
-		result.put(STATE_TAG, state.serializeNBT());
-		return result;
-	}
-
-	@Override
-	public SUpdateTileEntityPacket getUpdatePacket() {
-		CompoundNBT nbtTag = new CompoundNBT();
-		// Write data into the nbtTag
-		write(nbtTag);
-		return new SUpdateTileEntityPacket(getPos(), -1, nbtTag);
-	}
-
-	@Override
-	public CompoundNBT getUpdateTag() {
-		CompoundNBT nbtTagCompound = new CompoundNBT();
-		write(nbtTagCompound);
-		return nbtTagCompound;
+		nbt.put(STATE_TAG, state.serializeNBT());
 	}
 
 	@Override
-	public void onDataPacket(NetworkManager net, SUpdateTileEntityPacket pkt) {
-		CompoundNBT tag = pkt.getNbtCompound();
-		// Handle packet
-		read(tag);
+	public void writeDelta(PacketBuffer buffer, int fields) {
+		state.writeDelta(buffer, fields);
 	}
 
 	@Override
-	public void handleUpdateTag(CompoundNBT tag) {
-		read(tag);
+	public void readDelta(PacketBuffer buffer, int fields) {
+		state.readDelta(buffer, fields);
 	}
 
 }
@@ -0,0 +1,144 @@
+package spinyq.spinytextiles.tiles;
+
+import net.minecraft.block.BlockState;
+import net.minecraft.nbt.CompoundNBT;
+import net.minecraft.network.NetworkManager;
+import net.minecraft.network.PacketBuffer;
+import net.minecraft.network.play.server.SUpdateTileEntityPacket;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.tileentity.TileEntityType;
+import net.minecraftforge.common.util.Constants;
+import net.minecraftforge.fml.network.PacketDistributor;
+import spinyq.spinytextiles.ModNetwork;
+import spinyq.spinytextiles.network.DeltaUpdateMessage;
+
+/**
+ * A tile entity that keeps its clients in sync.
+ * Small changes can be sent as a "delta", which only contains the fields that changed.
+ * Each subclass decides what its fields are, and assigns each field a bit so that
+ * several fields can be sent at once.
+ * Bigger changes (like changing states) fall back to sending the whole state.
+ * Changes aren't sent right away. Instead, they are collected until the end of the
+ * server tick, so that a tile sends at most one update per tick.
+ * @author SpinyQ
+ *
+ */
+public abstract class SyncedTile extends TileEntity {
+
+	// Changes that haven't been sent yet
+	private int pendingFields = 0;
+	private boolean pendingFull = false;
+
+	public SyncedTile(TileEntityType<?> tileEntityTypeIn) {
+		super(tileEntityTypeIn);
+	}
+
+	/**
+	 * Writes the state of the tile, without any of the vanilla data (like position).
+	 */
+	protected abstract void writeState(CompoundNBT nbt);
+
+	/**
+	 * Reads the state of the tile written by writeState.
+	 */
+	protected abstract void readState(CompoundNBT nbt);
+
+	/**
+	 * Writes the values of some fields.
+	 * @param buffer The buffer to write to
+	 * @param fields A mask of the fields to write
+	 */
+	public abstract void writeDelta(PacketBuffer buffer, int fields);
+
+	/**
+	 * Reads the values of some fields written by writeDelta, and applies them to the tile.
+	 * This is only called on the client.
+	 * @param buffer The buffer to read from
+	 * @param fields A mask of the fields to read
+	 */
+	public abstract void readDelta(PacketBuffer buffer, int fields);
+
+	/**
+	 * Schedules the whole state to be sent to clients, and this tile to be saved.
+	 */
+	protected void notifyChange() {
+		// Clients receive the state from the server
+		if (world.isRemote) return;
+		pendingFull = true;
+		TileSyncScheduler.schedule(this);
+	}
+
+	/**
+	 * Schedules some fields to be sent to clients, and this tile to be saved.
+	 * @param fields A mask of the fields that changed
+	 */
+	protected void notifyChange(int fields) {
+		if (world.isRemote) return;
+		pendingFields |= fields;
+		TileSyncScheduler.schedule(this);
+	}
+
+	/**
+	 * Called on the server right before pending changes are sent.
+	 * Lets subclasses update anything that depends on their state, like the block state.
+	 */
+	protected void onSync() {
+	}
+
+	/**
+	 * Sends all pending changes to clients and marks this tile to be saved.
+	 * Called by the scheduler at the end of the tick.
+	 */
+	void sync() {
+		onSync();
+		if (pendingFull) {
+			// The whole state includes every field, so no need to send them separately
+			BlockState state = getBlockState();
+			world.notifyBlockUpdate(pos, state, state, Constants.BlockFlags.BLOCK_UPDATE);
+		} else if (pendingFields != 0) {
+			ModNetwork.CHANNEL.send(PacketDistributor.TRACKING_CHUNK.with(() -> world.getChunkAt(pos)),
+					new DeltaUpdateMessage(this, pendingFields));
+		}
+		markDirty();
+		pendingFull = false;
+		pendingFields = 0;
+	}
+
+	@Override
+	public void read(CompoundNBT compound) {
+		super.read(compound);
+		readState(compound);
+	}
+
+	@Override
+	public CompoundNBT write(CompoundNBT compound) {
+		CompoundNBT result = super.write(compound);
+		writeState(result);
+		return result;
+	}
+
+	@Override
+	public SUpdateTileEntityPacket getUpdatePacket() {
+		// The packet already knows the position, so only send the state
+		CompoundNBT nbtTag = new CompoundNBT();
+		writeState(nbtTag);
+		return new SUpdateTileEntityPacket(getPos(), -1, nbtTag);
+	}
+
+	@Override
+	public void onDataPacket(NetworkManager net, SUpdateTileEntityPacket pkt) {
+		readState(pkt.getNbtCompound());
+	}
+
+	@Override
+	public CompoundNBT getUpdateTag() {
+		// Chunk data needs the position, so write everything
+		return write(new CompoundNBT());
+	}
+
+	@Override
+	public void handleUpdateTag(CompoundNBT tag) {
+		read(tag);
+	}
+
+}
@@ -0,0 +1,47 @@
+package spinyq.spinytextiles.tiles;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod.EventBusSubscriber;
+import net.minecraftforge.fml.event.server.FMLServerStoppedEvent;
+
+/**
+ * Collects tiles that have changed during a server tick, and syncs each of them
+ * once at the end of the tick.
+ * This way a tile that changes several times in one tick only sends one update
+ * and is only marked to be saved once.
+ * @author SpinyQ
+ *
+ */
+@EventBusSubscriber
+public class TileSyncScheduler {
+
+	// Only accessed from the server thread
+	private static final Set<SyncedTile> PENDING = new LinkedHashSet<>();
+
+	static void schedule(SyncedTile tile) {
+		PENDING.add(tile);
+	}
+
+	@SubscribeEvent
+	public static void onServerTick(TickEvent.ServerTickEvent event) {
+		if (event.phase != TickEvent.Phase.END || PENDING.isEmpty()) return;
+		// Copy the pending tiles first, in case syncing schedules anything else
+		SyncedTile[] tiles = PENDING.toArray(new SyncedTile[0]);
+		PENDING.clear();
+		for (SyncedTile tile : tiles) {
+			// Skip tiles that were removed during the tick
+			if (!tile.isRemoved() && tile.hasWorld()) tile.sync();
+		}
+	}
+
+	@SubscribeEvent
+	public static void onServerStopped(FMLServerStoppedEvent event) {
+		// Don't hold on to tiles from the old server
+		PENDING.clear();
+	}
+
+}
@@ -1,12 +1,13 @@
 package spinyq.spinytextiles.utility;
 
 import java.util.Collection;
-import java.util.function.BiFunction;
 import java.util.function.Function;
+import java.util.function.IntSupplier;
 import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
 
-import org.apache.logging.log4j.util.TriConsumer;
-
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableMap;
 
 import net.minecraft.item.ItemStack;
@@ -25,7 +26,7 @@ import net.minecraftforge.registries.IForgeRegistryEntry;
  */
 public class NBTHelper {
 
-	public static final String TYPE_TAG = "Type", KEY_TAG = "Key", VALUE_TAG = "Value", DIRTY_TAG = "Dirty";
+	public static final String TYPE_TAG = "Type", KEY_TAG = "Key", VALUE_TAG = "Value";
 	
 	public static class ClassIdSpace {
 		
@@ -80,73 +81,161 @@ public class NBTHelper {
 		
 	}
 	
-	public static class CalculatedValue<T> {
+	/**
+	 * A value that is calculated from an item stack and then cached, so that it only
+	 * has to be recalculated after being marked as dirty.
+	 * Values are kept in a side cache keyed by the identity of the stack's NBT
+	 * compound, so reading a value never modifies or allocates anything in the
+	 * stack's NBT. Each cached value also records a version stamp from the version
+	 * source it was calculated with, and is recalculated once the stamp is out of
+	 * date. This allows values that depend on something other than the stack (like
+	 * a loaded palette) to be invalidated all at once.
+	 */
+	public static abstract class AbstractCalculatedValue<E extends AbstractCalculatedValue.Entry> {
 		
-		private String tag;
-		private BiFunction<CompoundNBT, String, T> getter;
-		private TriConsumer<CompoundNBT, String, T> setter;
-		private Function<ItemStack, T> calculator;
+		protected static class Entry {
+			
+			protected final int version;
+			
+			protected Entry(int version) {
+				this.version = version;
+			}
+			
+		}
 		
-		private CalculatedValue(String tag, BiFunction<CompoundNBT, String, T> getter,
-				TriConsumer<CompoundNBT, String, T> setter, Function<ItemStack, T> calculator) {
+		// Older versions stored values in the stack itself, under this tag
+		protected final String tag;
+		protected final IntSupplier versionSource;
+		// Weak keys, so that values go away along with their stacks
+		private final Cache<CompoundNBT, E> cache = CacheBuilder.newBuilder().weakKeys().build();
+		
+		protected AbstractCalculatedValue(String tag, IntSupplier versionSource) {
 			this.tag = tag;
-			this.getter = getter;
-			this.setter = setter;
+			this.versionSource = versionSource;
+		}
+
+		/**
+		 * Must be called before anything the value depends on is changed.
+		 */
+		public void markDirty(ItemStack item) {
+			CompoundNBT nbt = item.getTag();
+			if (nbt != null) {
+				// Throw away the cached value
+				cache.invalidate(nbt);
+				// Clean up anything left over from older versions
+				if (nbt.contains(tag)) item.removeChildTag(tag);
+			}
+		}
+		
+		/**
+		 * Looks up a cached value that is still up to date.
+		 * @return The cached entry, or null if it has to be recalculated
+		 */
+		protected E getCached(CompoundNBT nbt, int version) {
+			E entry = cache.getIfPresent(nbt);
+			return (entry != null && entry.version == version) ? entry : null;
+		}
+		
+		protected void putCached(CompoundNBT nbt, E entry) {
+			cache.put(nbt, entry);
+		}
+		
+	}
+	
+	public static class CalculatedValue<T> extends AbstractCalculatedValue<CalculatedValue.ValueEntry<T>> {
+		
+		protected static class ValueEntry<T> extends AbstractCalculatedValue.Entry {
+			
+			private final T value;
+			
+			private ValueEntry(int version, T value) {
+				super(version);
+				this.value = value;
+			}
+			
+		}
+		
+		private Function<ItemStack, T> calculator;
+		
+		private CalculatedValue(String tag, IntSupplier versionSource, Function<ItemStack, T> calculator) {
+			super(tag, versionSource);
 			this.calculator = calculator;
 		}
 		
 		public T get(ItemStack item) {
-			T value;
-			// Check if dirty
-			// If the value is dirty, we have to recalculate it
-			CompoundNBT compound = item.getOrCreateChildTag(tag);
-			if (isDirty(item)) {
-				value = calculator.apply(item);
-				// Remove dirty flag
-				compound.putBoolean(DIRTY_TAG, false);
-				// Store value
-				setter.accept(compound, VALUE_TAG, value);
+			// Stacks without NBT can't be cached, so just calculate the value
+			CompoundNBT nbt = item.getTag();
+			if (nbt == null) return calculator.apply(item);
+			// If we have an up-to-date value, use it
+			// Otherwise recalculate the value and cache it
+			int version = versionSource.getAsInt();
+			ValueEntry<T> entry = getCached(nbt, version);
+			if (entry == null) {
+				entry = new ValueEntry<>(version, calculator.apply(item));
+				putCached(nbt, entry);
 			}
-			else {
-				// Retrieve stored value
-				value = getter.apply(compound, VALUE_TAG);
+			return entry.value;
+		}
+		
+	}
+	
+	/**
+	 * Same as CalculatedValue, but for int values, so they don't have to be boxed.
+	 */
+	public static class CalculatedIntValue extends AbstractCalculatedValue<CalculatedIntValue.IntEntry> {
+		
+		protected static class IntEntry extends AbstractCalculatedValue.Entry {
+			
+			private final int value;
+			
+			private IntEntry(int version, int value) {
+				super(version);
+				this.value = value;
 			}
-			return value;
+			
 		}
-
-		public void markDirty(ItemStack item) {
-			// Set the dirty flag
-			item.getOrCreateChildTag(tag).putBoolean(DIRTY_TAG, true);
+		
+		private ToIntFunction<ItemStack> calculator;
+		
+		private CalculatedIntValue(String tag, IntSupplier versionSource, ToIntFunction<ItemStack> calculator) {
+			super(tag, versionSource);
+			this.calculator = calculator;
 		}
 		
-		private boolean isDirty(ItemStack item) {
-			CompoundNBT compound = item.getOrCreateChildTag(tag);
-			boolean dirty;
-			if (!compound.contains(DIRTY_TAG)) {
-				dirty = true;
-				compound.putBoolean(DIRTY_TAG, dirty);
-			}
-			else {
-				dirty = compound.getBoolean(DIRTY_TAG);
+		public int get(ItemStack item) {
+			// Stacks without NBT can't be cached, so just calculate the value
+			CompoundNBT nbt = item.getTag();
+			if (nbt == null) return calculator.applyAsInt(item);
+			// If we have an up-to-date value, use it
+			// Otherwise recalculate the value and cache it
+			int version = versionSource.getAsInt();
+			IntEntry entry = getCached(nbt, version);
+			if (entry == null) {
+				entry = new IntEntry(version, calculator.applyAsInt(item));
+				putCached(nbt, entry);
 			}
-			return dirty;
+			return entry.value;
 		}
 		
 	}
 	
-	public static CalculatedValue<String> createCalculatedStringValue(String tag, Function<ItemStack, String> calculator) {
-		return new CalculatedValue<>(tag, CompoundNBT::getString, CompoundNBT::putString, calculator);
+	// Used for values that only depend on the stack itself
+	private static final IntSupplier NO_VERSION = () -> 0;
+	
+	public static <T> CalculatedValue<T> createCalculatedValue(String tag, Function<ItemStack, T> calculator) {
+		return new CalculatedValue<>(tag, NO_VERSION, calculator);
+	}
+	
+	/**
+	 * Creates a calculated value that is also recalculated whenever the given version source changes.
+	 */
+	public static <T> CalculatedValue<T> createCalculatedValue(String tag, IntSupplier versionSource,
+			Function<ItemStack, T> calculator) {
+		return new CalculatedValue<>(tag, versionSource, calculator);
 	}
 	
-	public static <T extends Enum<T>> CalculatedValue<T> createCalculatedEnumValue(String tag, Class<T> clazz, Function<ItemStack, T> calculator) {
-		return new CalculatedValue<T>(tag,
-				(nbt, key) -> {
-					return clazz.getEnumConstants()[nbt.getInt(key)];
-				},
-				(nbt, key, value) -> {
-					nbt.putInt(key, value.ordinal());
-				},
-				calculator);
+	public static CalculatedIntValue createCalculatedIntValue(String tag, ToIntFunction<ItemStack> calculator) {
+		return new CalculatedIntValue(tag, NO_VERSION, calculator);
 	}
 	
 	public static <T extends INBTSerializable<K>, K extends INBT> void put(CompoundNBT nbt, String key, T object) {
@@ -0,0 +1,88 @@
+package spinyq.spinytextiles.utility.color;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import net.minecraft.util.ResourceLocation;
+
+/**
+ * An immutable set of color words, indexed so that the closest word to a color can be found quickly.
+ * There is always a "current" palette, which is replaced as a whole whenever a new one is loaded.
+ * Since palettes never change after they are created, they can be read from any thread without locking.
+ * @author SpinyQ
+ *
+ */
+public class ColorPalette {
+
+	// Used to give each palette a unique generation
+	private static final AtomicInteger NEXT_GENERATION = new AtomicInteger();
+	private static volatile ColorPalette current = new ColorPalette(ColorWord.getDefaults());
+
+	private final int generation = NEXT_GENERATION.getAndIncrement();
+	private final ImmutableList<ColorWord> words;
+	private final ImmutableMap<ResourceLocation, ColorWord> wordsByName;
+	private final ColorTree<ColorWord> tree;
+
+	public ColorPalette(Collection<ColorWord> words) {
+		this.words = ImmutableList.copyOf(words);
+		ImmutableMap.Builder<ResourceLocation, ColorWord> builder = new ImmutableMap.Builder<>();
+		for (ColorWord word : this.words) {
+			builder.put(word.getName(), word);
+		}
+		this.wordsByName = builder.build();
+		this.tree = new ColorTree<>(this.words, (word) -> word.color);
+	}
+
+	public static ColorPalette getCurrent() {
+		return current;
+	}
+
+	public static void setCurrent(ColorPalette palette) {
+		current = palette;
+	}
+
+	/**
+	 * Goes back to using the built-in color words.
+	 */
+	public static void reset() {
+		current = new ColorPalette(ColorWord.getDefaults());
+	}
+
+	/**
+	 * Returns a number that is different for every palette that has been created.
+	 * Can be used to tell whether something calculated using an older palette is out of date.
+	 */
+	public int getGeneration() {
+		return generation;
+	}
+
+	/**
+	 * Convenience method that returns the generation of the current palette.
+	 */
+	public static int getCurrentGeneration() {
+		return current.generation;
+	}
+
+	public ImmutableList<ColorWord> getWords() {
+		return words;
+	}
+
+	/**
+	 * @return The color word with the given name, or null if this palette doesn't contain it
+	 */
+	public ColorWord get(ResourceLocation name) {
+		return wordsByName.get(name);
+	}
+
+	public ColorWord getClosest(RYBKColor to) {
+		return tree.getNearest(to);
+	}
+
+	public int size() {
+		return words.size();
+	}
+
+}
@@ -0,0 +1,131 @@
+package spinyq.spinytextiles.utility.color;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+
+import net.minecraft.client.resources.JsonReloadListener;
+import net.minecraft.entity.player.ServerPlayerEntity;
+import net.minecraft.profiler.IProfiler;
+import net.minecraft.resources.IResourceManager;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.util.JSONUtils;
+import net.minecraft.util.ResourceLocation;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.client.event.ClientPlayerNetworkEvent;
+import net.minecraftforge.event.entity.player.PlayerEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod.EventBusSubscriber;
+import net.minecraftforge.fml.event.server.FMLServerAboutToStartEvent;
+import net.minecraftforge.fml.event.server.FMLServerStoppedEvent;
+import net.minecraftforge.fml.network.PacketDistributor;
+import spinyq.spinytextiles.ModNetwork;
+import spinyq.spinytextiles.network.ColorPaletteMessage;
+
+/**
+ * Loads the color palette from data packs, i.e. from data/<namespace>/color_words/*.json.
+ * Each file defines a single color word, named after the file, with a "color" array
+ * holding its red, yellow, blue and black amounts.
+ * Once loaded, the palette is also sent to every connected player.
+ * @author SpinyQ
+ *
+ */
+@EventBusSubscriber
+public class ColorPaletteLoader extends JsonReloadListener {
+
+	private static final Logger LOGGER = LogManager.getLogger();
+	private static final Gson GSON = new GsonBuilder().create();
+	private static final String FOLDER = "color_words", COLOR_KEY = "color";
+
+	private final MinecraftServer server;
+
+	public ColorPaletteLoader(MinecraftServer server) {
+		super(GSON, FOLDER);
+		this.server = server;
+	}
+
+	@SubscribeEvent
+	public static void onServerAboutToStart(FMLServerAboutToStartEvent event) {
+		// Register ourselves as a reload listener for the server's data packs
+		MinecraftServer server = event.getServer();
+		server.getResourceManager().addReloadListener(new ColorPaletteLoader(server));
+	}
+
+	@SubscribeEvent
+	public static void onServerStopped(FMLServerStoppedEvent event) {
+		// Don't let the palette leak into the next world
+		ColorPalette.reset();
+	}
+
+	@SubscribeEvent
+	public static void onPlayerLoggedIn(PlayerEvent.PlayerLoggedInEvent event) {
+		// Let the player know what palette we are using
+		ModNetwork.CHANNEL.send(PacketDistributor.PLAYER.with(() -> (ServerPlayerEntity) event.getPlayer()),
+				new ColorPaletteMessage(ColorPalette.getCurrent()));
+	}
+
+	@Override
+	protected void apply(Map<ResourceLocation, JsonObject> objects, IResourceManager resourceManager,
+			IProfiler profiler) {
+		List<ColorWord> words = new ArrayList<>();
+		for (Entry<ResourceLocation, JsonObject> entry : objects.entrySet()) {
+			try {
+				words.add(readColorWord(entry.getKey(), entry.getValue()));
+			} catch (IllegalArgumentException | JsonParseException e) {
+				LOGGER.error("Parsing error loading color word {}", entry.getKey(), e);
+			}
+		}
+		// Fall back to the built-in color words if there is nothing to use
+		if (words.isEmpty()) {
+			LOGGER.warn("No color words loaded, using built-in color words");
+			ColorPalette.reset();
+		} else {
+			// Sort words by name so that the palette doesn't depend on load order
+			words.sort(Comparator.comparing(ColorWord::getName));
+			ColorPalette.setCurrent(new ColorPalette(words));
+			LOGGER.info("Loaded {} color words", words.size());
+		}
+		// If anyone is already connected (i.e. on /reload), send them the new palette
+		if (server.getPlayerList() != null && !server.getPlayerList().getPlayers().isEmpty()) {
+			ModNetwork.CHANNEL.send(PacketDistributor.ALL.noArg(), new ColorPaletteMessage(ColorPalette.getCurrent()));
+		}
+	}
+
+	private static ColorWord readColorWord(ResourceLocation name, JsonObject json) {
+		JsonArray array = JSONUtils.getJsonArray(json, COLOR_KEY);
+		if (array.size() != 4) {
+			throw new JsonParseException("Expected 4 color values, got " + array.size());
+		}
+		RYBKColor color = new RYBKColor(JSONUtils.getFloat(array.get(0), "red"),
+				JSONUtils.getFloat(array.get(1), "yellow"),
+				JSONUtils.getFloat(array.get(2), "blue"),
+				JSONUtils.getFloat(array.get(3), "black")).clamp();
+		return new ColorWord(name, color);
+	}
+
+	/**
+	 * Goes back to the built-in palette when leaving a server,
+	 * so that its palette doesn't stick around.
+	 */
+	@EventBusSubscriber(value = Dist.CLIENT)
+	public static class ClientHandler {
+
+		@SubscribeEvent
+		public static void onLoggedOut(ClientPlayerNetworkEvent.LoggedOutEvent event) {
+			ColorPalette.reset();
+		}
+
+	}
+
+}
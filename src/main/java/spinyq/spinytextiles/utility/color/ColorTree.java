@@ -0,0 +1,132 @@
+package spinyq.spinytextiles.utility.color;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+
+import spinyq.spinytextiles.utility.color.RYBKColor.Axis;
+
+/**
+ * An immutable k-d tree over RYBK space, used to find the value whose color is
+ * closest to some other color without comparing against every value.
+ * Lookups cost roughly O(log n), so large palettes stay cheap to search.
+ * If two values are equally close, the one that came first in the original list
+ * is returned, which matches a plain linear search.
+ * Once built, the tree can safely be queried from multiple threads.
+ * @author SpinyQ
+ *
+ * @param <T> The type of value stored in the tree
+ */
+public class ColorTree<T> {
+
+	private static final Axis[] AXES = Axis.values();
+	private static final int DIMENSIONS = AXES.length;
+
+	// The tree is stored implicitly. Each node is the middle of a range of indices,
+	// and its children are the middles of the ranges on either side of it.
+	// Points are flattened, so the coordinates of node i start at i * DIMENSIONS
+	private final float[] points;
+	private final Object[] values;
+	// The position of each value in the original list, used to break ties
+	private final int[] order;
+
+	/**
+	 * Keeps track of the best match found so far during a search
+	 */
+	private static class Nearest {
+
+		private int node = -1;
+		private float distSquared = Float.POSITIVE_INFINITY;
+
+	}
+
+	public ColorTree(List<T> values, Function<T, RYBKColor> colorGetter) {
+		int size = values.size();
+		this.points = new float[size * DIMENSIONS];
+		this.values = new Object[size];
+		this.order = new int[size];
+		// Pull out the coordinates of each value once, so we don't have to
+		// keep calling the color getter while sorting
+		float[] coords = new float[size * DIMENSIONS];
+		Integer[] indices = new Integer[size];
+		for (int i = 0; i < size; i++) {
+			RYBKColor color = colorGetter.apply(values.get(i));
+			for (int axis = 0; axis < DIMENSIONS; axis++)
+				coords[i * DIMENSIONS + axis] = color.get(AXES[axis]);
+			indices[i] = i;
+		}
+		// Build the tree, then copy everything into place
+		build(indices, coords, 0, size, 0);
+		for (int node = 0; node < size; node++) {
+			int index = indices[node];
+			System.arraycopy(coords, index * DIMENSIONS, points, node * DIMENSIONS, DIMENSIONS);
+			this.values[node] = values.get(index);
+			this.order[node] = index;
+		}
+	}
+
+	/**
+	 * Sorts a range of indices so that its middle element is the median along the
+	 * current axis, then does the same for both halves.
+	 */
+	private static void build(Integer[] indices, float[] coords, int from, int to, int depth) {
+		if (to - from <= 1) return;
+		int axis = depth % DIMENSIONS;
+		Comparator<Integer> comparator = Comparator.comparingDouble((index) -> coords[index * DIMENSIONS + axis]);
+		Arrays.sort(indices, from, to, comparator.thenComparingInt((index) -> index));
+		int middle = (from + to) >>> 1;
+		build(indices, coords, from, middle, depth + 1);
+		build(indices, coords, middle + 1, to, depth + 1);
+	}
+
+	public int size() {
+		return values.length;
+	}
+
+	/**
+	 * Finds the value whose color is closest to the given color.
+	 * @return The closest value, or null if the tree is empty
+	 */
+	@SuppressWarnings("unchecked")
+	public T getNearest(RYBKColor to) {
+		if (values.length == 0) return null;
+		float r = to.get(Axis.RED), y = to.get(Axis.YELLOW), b = to.get(Axis.BLUE), k = to.get(Axis.BLACK);
+		Nearest nearest = new Nearest();
+		search(0, values.length, 0, r, y, b, k, nearest);
+		return (T) values[nearest.node];
+	}
+
+	private void search(int from, int to, int depth, float r, float y, float b, float k, Nearest nearest) {
+		if (from >= to) return;
+		int node = (from + to) >>> 1;
+		int offset = node * DIMENSIONS;
+		// Check the node itself
+		float dr = r - points[offset], dy = y - points[offset + 1], db = b - points[offset + 2],
+				dk = k - points[offset + 3];
+		float distSquared = (dr * dr) + (dy * dy) + (db * db) + (dk * dk);
+		if (distSquared < nearest.distSquared
+				|| (distSquared == nearest.distSquared && order[node] < order[nearest.node])) {
+			nearest.node = node;
+			nearest.distSquared = distSquared;
+		}
+		// Search the side of the splitting plane the color is on first,
+		// then only search the other side if it could contain something closer
+		int axis = depth % DIMENSIONS;
+		float diff;
+		switch (axis) {
+		case 0: diff = dr; break;
+		case 1: diff = dy; break;
+		case 2: diff = db; break;
+		default: diff = dk; break;
+		}
+		if (diff < 0.0f) {
+			search(from, node, depth + 1, r, y, b, k, nearest);
+			if (diff * diff <= nearest.distSquared) search(node + 1, to, depth + 1, r, y, b, k, nearest);
+		} else {
+			search(node + 1, to, depth + 1, r, y, b, k, nearest);
+			if (diff * diff <= nearest.distSquared) search(from, node, depth + 1, r, y, b, k, nearest);
+		}
+	}
+
+}
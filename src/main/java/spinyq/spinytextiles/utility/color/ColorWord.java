@@ -1,34 +1,59 @@
 package spinyq.spinytextiles.utility.color;
 
-import java.util.Arrays;
-import java.util.Comparator;
 import java.util.List;
 
-public enum ColorWord {
+import com.google.common.collect.ImmutableList;
 
-	WHITE(new RYBKColor(0.0f, 0.0f, 0.0f, 0.0f)),
-	BLACK(new RYBKColor(0.0f, 0.0f, 0.0f, 1.0f)),
-	RED(new RYBKColor(1.0f, 0.0f, 0.0f, 0.0f)),
-	YELLOW(new RYBKColor(0.0f, 1.0f, 0.0f, 0.0f)),
-	BLUE(new RYBKColor(0.0f, 0.0f, 1.0f, 0.0f)),
-	ORANGE(new RYBKColor(1.0f, 1.0f, 0.0f, 0.0f)),
-	GREEN(new RYBKColor(0.0f, 1.0f, 1.0f, 0.0f)),
-	PURPLE(new RYBKColor(1.0f, 0.0f, 1.0f, 0.0f)),
-	BROWN(new RYBKColor(1.0f, 1.0f, 1.0f, 0.0f));
+import net.minecraft.util.ResourceLocation;
+import spinyq.spinytextiles.TextileMod;
 
+/**
+ * A named color, used to describe the color of things like thread and fabric.
+ * The set of color words in use is defined by the current ColorPalette, which is
+ * loaded from data packs. A few built-in words are always available, and make up
+ * the palette until one has been loaded.
+ * @author SpinyQ
+ *
+ */
+public class ColorWord {
+
+	public static final ColorWord WHITE = createDefault("white", new RYBKColor(0.0f, 0.0f, 0.0f, 0.0f)),
+			BLACK = createDefault("black", new RYBKColor(0.0f, 0.0f, 0.0f, 1.0f)),
+			RED = createDefault("red", new RYBKColor(1.0f, 0.0f, 0.0f, 0.0f)),
+			YELLOW = createDefault("yellow", new RYBKColor(0.0f, 1.0f, 0.0f, 0.0f)),
+			BLUE = createDefault("blue", new RYBKColor(0.0f, 0.0f, 1.0f, 0.0f)),
+			ORANGE = createDefault("orange", new RYBKColor(1.0f, 1.0f, 0.0f, 0.0f)),
+			GREEN = createDefault("green", new RYBKColor(0.0f, 1.0f, 1.0f, 0.0f)),
+			PURPLE = createDefault("purple", new RYBKColor(1.0f, 0.0f, 1.0f, 0.0f)),
+			BROWN = createDefault("brown", new RYBKColor(1.0f, 1.0f, 1.0f, 0.0f));
+
+	private static final ImmutableList<ColorWord> DEFAULTS = ImmutableList.of(WHITE, BLACK, RED, YELLOW, BLUE,
+			ORANGE, GREEN, PURPLE, BROWN);
+
+	private static ColorWord createDefault(String name, RYBKColor color) {
+		return new ColorWord(new ResourceLocation(TextileMod.MODID, name), color);
+	}
+
+	private final ResourceLocation name;
 	public final RYBKColor color;
 	private String translationKey;
 
-	private ColorWord(RYBKColor color) {
+	public ColorWord(ResourceLocation name, RYBKColor color) {
+		this.name = name;
 		this.color = color;
 	}
 
+	public ResourceLocation getName() {
+		return name;
+	}
+
 	/**
 	 * Returns a translation key which can be translated
 	 * to the name of this color.
+	 * Only the path of the name is used, so "spinytextiles:white" becomes "color.white".
 	 */
 	public String getTranslationKey() {
-		if (translationKey == null) translationKey = "color." + toString().toLowerCase();
+		if (translationKey == null) translationKey = "color." + name.getPath();
 		return translationKey;
 	}
 	
@@ -40,17 +65,24 @@ public enum ColorWord {
 		return getTranslationKey() + ".description";
 	}
 
-	public static ColorWord getClosest(RYBKColor to) {
-		List<ColorWord> list = Arrays.asList(ColorWord.values());
-		Comparator<ColorWord> comparator = new Comparator<ColorWord>() {
+	@Override
+	public String toString() {
+		return name.toString();
+	}
 
-			@Override
-			public int compare(ColorWord a, ColorWord b) {
-				return (int) Math.signum(b.color.dist(to) - a.color.dist(to));
-			}
+	/**
+	 * Returns the built-in color words.
+	 * These are always the same, regardless of what palette is loaded.
+	 */
+	public static List<ColorWord> getDefaults() {
+		return DEFAULTS;
+	}
 
-		};
-		return list.stream().max(comparator).get();
+	/**
+	 * Finds the color word in the current palette which is closest to a color.
+	 */
+	public static ColorWord getClosest(RYBKColor to) {
+		return ColorPalette.getCurrent().getClosest(to);
 	}
 
 }
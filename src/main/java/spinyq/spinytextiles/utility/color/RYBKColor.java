@@ -36,6 +36,9 @@ public class RYBKColor implements INBTSerializable<IntNBT> {
 		
 	}
 	
+	// Red is primary axis, yellow is secondary, blue is tertiary
+	// So (0, 0, 0) -> 0, (0, 0, 1) -> 1, (0, 1, 0) -> 2, (0, 1, 1) -> 3, ...
+	// (1, 1, 0) would represent a mixture of red and yellow and would be orange
 	private static final RGBColor[] RGB_POINTS = {
 			new RGBColor(1.0f, 1.0f, 1.0f), // WHITE
 			new RGBColor(0.163f, 0.373f, 0.95f), // BLUE
@@ -68,20 +71,57 @@ public class RYBKColor implements INBTSerializable<IntNBT> {
 			.put(DyeColor.WHITE, new RYBKColor(0.0f, 0.0f, 0.0f, 0.0f))
 			.put(DyeColor.YELLOW, new RYBKColor(0.0f, 1.0f, 0.0f, 0.0f)).build());
 	
+	// The corners of the RGB cube split up by channel, so that the interpolation
+	// can be done on plain floats without allocating intermediate colors.
+	// Indexed the same way as RGB_POINTS
+	private static final float[] RED_POINTS = new float[RGB_POINTS.length],
+			GREEN_POINTS = new float[RGB_POINTS.length],
+			BLUE_POINTS = new float[RGB_POINTS.length];
+	
+	static {
+		for (int i = 0; i < RGB_POINTS.length; i++) {
+			RED_POINTS[i] = RGB_POINTS[i].r;
+			GREEN_POINTS[i] = RGB_POINTS[i].g;
+			BLUE_POINTS[i] = RGB_POINTS[i].b;
+		}
+	}
+	
 	// Used to "bias" the interpolation factor towards the corners of the cube
-	private static final Function<Float, Float> BIAS_FUNCTION = (f) -> f*f*(3-2*f);
+	private static float bias(float f) {
+		return f*f*(3-2*f);
+	}
+	
+	/**
+	 * Trilinear interpolation of a single RGB channel.
+	 * @param points The channel values of the corners of the RGB cube
+	 * @param base The channel value to use for the origin of the cube
+	 * @param black The channel value of black
+	 */
+	private static float interpolate(float[] points, float base, float black, float rb, float yb, float bb, float k) {
+		// Interpolate along blue axis
+		float c00 = ((points[1] - base) * bb) + base,
+				c01 = ((points[3] - points[2]) * bb) + points[2],
+				c10 = ((points[5] - points[4]) * bb) + points[4],
+				c11 = ((points[7] - points[6]) * bb) + points[6];
+		// Inteprolate along yellow axis
+		float c0 = ((c01 - c00) * yb) + c00,
+				c1 = ((c11 - c10) * yb) + c10;
+		// Finally, interpolate along red axis
+		// Also apply black
+		float c = ((c1 - c0) * rb) + c0;
+		return ((black - c) * k) + c;
+	}
 	
-	private static RGBColor getRGBPoint(int r, int y, int b) {
-		// Red is primary axis, yellow is secondary, blue is tertiary
-		// So (0, 0, 0) -> 0, (0, 0, 1) -> 1, (0, 1, 0) -> 2, (0, 1, 1) -> 3, ...
-		// (1, 1, 0) would represent a mixture of red and yellow and would be orange
-		int n = 1, index = 0;
-		index += b * n;
-		n *= 2;
-		index += y * n;
-		n *= 2;
-		index += r * n;
-		return RGB_POINTS[index];
+	private static int toRGBInt(float r, float y, float b, float k, RGBColor base) {
+		// Apply bias function to color values
+		float rb = bias(r), yb = bias(y), bb = bias(b);
+		// Interpolate each channel and pack them the same way as RGBColor.toInt
+		RGBColor c000 = (base == null) ? RGB_POINTS[0] : base;
+		int n = 0;
+		n += ((int) (interpolate(RED_POINTS, c000.r, BLACK.r, rb, yb, bb, k) * 255)) << 16;
+		n += ((int) (interpolate(GREEN_POINTS, c000.g, BLACK.g, rb, yb, bb, k) * 255)) << 8;
+		n += ((int) (interpolate(BLUE_POINTS, c000.b, BLACK.b, rb, yb, bb, k) * 255));
+		return n;
 	}
 	
 	// "How much" red, yellow, blue, and black this color has. Between 0 and 1 inclusive
@@ -155,8 +195,35 @@ public class RYBKColor implements INBTSerializable<IntNBT> {
 		return new RYBKColor(((other.r - r) * factor) + r, ((other.y - y) * factor) + y, ((other.b - b) * factor) + b, ((other.k - k) * factor) + k);
 	}
 	
+	// Modifies this color
+	// Same as interp, but writes the result to this color
+	public RYBKColor interpTo(RYBKColor other, float factor) {
+		this.r += (other.r - r) * factor;
+		this.y += (other.y - y) * factor;
+		this.b += (other.b - b) * factor;
+		this.k += (other.k - k) * factor;
+		return this;
+	}
+	
 	public double dist(RYBKColor other) {
-		return Math.sqrt(Math.pow(r - other.r, 2.0f) + Math.pow(y - other.y, 2.0f) + Math.pow(b - other.b, 2.0f) + Math.pow(k - other.k, 2.0f));
+		return Math.sqrt(distSquared(other));
+	}
+	
+	public float distSquared(RYBKColor other) {
+		float dr = r - other.r, dy = y - other.y, db = b - other.b, dk = k - other.k;
+		return (dr * dr) + (dy * dy) + (db * db) + (dk * dk);
+	}
+	
+	/**
+	 * Returns "how much" of the given axis this color has.
+	 */
+	public float get(Axis axis) {
+		switch (axis) {
+		case RED: return r;
+		case YELLOW: return y;
+		case BLUE: return b;
+		default: return k;
+		}
 	}
 	
 	// Dot product
@@ -200,33 +267,23 @@ public class RYBKColor implements INBTSerializable<IntNBT> {
 
 	public RGBColor toRGB(RGBColor color, RGBColor base) {
 		// Apply bias function to color values
-		float rb = BIAS_FUNCTION.apply(r),
-				yb = BIAS_FUNCTION.apply(y),
-				bb = BIAS_FUNCTION.apply(b);
-		// Trilinear interpolation
-		RGBColor c000 = (base == null) ? getRGBPoint(0,0,0) : base,
-				c001 = getRGBPoint(0,0,1),
-				c010 = getRGBPoint(0,1,0),
-				c011 = getRGBPoint(0,1,1),
-				c100 = getRGBPoint(1,0,0),
-				c101 = getRGBPoint(1,0,1),
-				c110 = getRGBPoint(1,1,0),
-				c111 = getRGBPoint(1,1,1);
-		// Interpolate along blue axis
-		RGBColor c00 = c000.interp(c001, bb),
-				c01 = c010.interp(c011, bb),
-				c10 = c100.interp(c101, bb),
-				c11 = c110.interp(c111, bb);
-		// Inteprolate along yellow axis
-		RGBColor c0 = c00.interp(c01, yb),
-				c1 = c10.interp(c11, yb);
-		// Finally, interpolate along red axis
-		// Also apply black
-		RGBColor c = c0.interp(c1, rb).interp(BLACK, k);
-		color.setAll(c);
+		float rb = bias(r), yb = bias(y), bb = bias(b);
+		// Trilinear interpolation, one channel at a time
+		RGBColor c000 = (base == null) ? RGB_POINTS[0] : base;
+		color.r = interpolate(RED_POINTS, c000.r, BLACK.r, rb, yb, bb, k);
+		color.g = interpolate(GREEN_POINTS, c000.g, BLACK.g, rb, yb, bb, k);
+		color.b = interpolate(BLUE_POINTS, c000.b, BLACK.b, rb, yb, bb, k);
 		return color;
 	}
 	
+	/**
+	 * Same as toRGB, but returns the result packed into an integer of format
+	 * 0xRRGGBB instead of writing it to a color. Does not allocate anything.
+	 */
+	public int toRGBInt(RGBColor base) {
+		return toRGBInt(r, y, b, k, base);
+	}
+	
 	/**
 	 * Convenience method that writes this RYBKColor to an RGBAColor. Sets the alpha to 1.0.
 	 */
@@ -12,6 +12,7 @@ import javax.annotation.Nullable;
 import net.minecraft.util.LazyValue;
 import net.minecraft.util.ResourceLocation;
 import net.minecraftforge.fml.common.registry.GameRegistry;
+import net.minecraftforge.registries.ForgeRegistry;
 import net.minecraftforge.registries.IForgeRegistry;
 import net.minecraftforge.registries.IForgeRegistryEntry;
 
@@ -113,6 +114,22 @@ public class LazyForgeRegistry<V extends IForgeRegistryEntry<V>> implements IFor
 		return getRegistry().getEntries();
 	}
 
+	/**
+	 * Returns the numeric ID of a value.
+	 * IDs are synced to clients and saved with the world, so they are safe to store in item NBT.
+	 */
+	public int getID(final V value) {
+		return ((ForgeRegistry<V>) getRegistry()).getID(value);
+	}
+
+	/**
+	 * Looks up a value using its numeric ID.
+	 */
+	@Nullable
+	public V getValue(final int id) {
+		return ((ForgeRegistry<V>) getRegistry()).getValue(id);
+	}
+
 	@Override
 	public <T> T getSlaveMap(final ResourceLocation slaveMapName, final Class<T> type) {
 		return getRegistry().getSlaveMap(slaveMapName, type);
@@ -1,6 +1,7 @@
 package spinyq.spinytextiles.utility.textile;
 
 import net.minecraft.nbt.CompoundNBT;
+import net.minecraft.network.PacketBuffer;
 import net.minecraftforge.common.util.INBTSerializable;
 import spinyq.spinytextiles.utility.NBTHelper;
 import spinyq.spinytextiles.utility.color.RYBKColor;
@@ -52,6 +53,23 @@ public class Fiber implements INBTSerializable<CompoundNBT> {
 		return "FiberInfo [color=" + color + ", amount=" + amount + "]";
 	}
 
+	/**
+	 * Writes this fiber to a packet buffer, in a more compact form than NBT.
+	 */
+	public void write(PacketBuffer buffer) {
+		buffer.writeInt(color.toInt());
+		buffer.writeVarInt(amount);
+	}
+	
+	/**
+	 * Reads a fiber written by write.
+	 */
+	public Fiber read(PacketBuffer buffer) {
+		color = new RYBKColor().fromInt(buffer.readInt());
+		amount = buffer.readVarInt();
+		return this;
+	}
+
 	@Override
 	public CompoundNBT serializeNBT() {
 		CompoundNBT nbt = new CompoundNBT();
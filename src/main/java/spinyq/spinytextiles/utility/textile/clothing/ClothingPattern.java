@@ -3,6 +3,7 @@ package spinyq.spinytextiles.utility.textile.clothing;
 import java.util.function.Supplier;
 import java.util.stream.Stream;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 
 import net.minecraft.inventory.EquipmentSlotType;
@@ -31,4 +32,23 @@ public class ClothingPattern extends AbstractPattern<ClothingPattern> {
 		return parts.stream().map(Supplier::get);
 	}
 	
+	public int getPartCount() {
+		return parts.size();
+	}
+	
+	public ClothingPart getPart(int index) {
+		return parts.asList().get(index).get();
+	}
+	
+	/**
+	 * Returns the index of a part in this pattern, or -1 if the pattern doesn't have the part.
+	 */
+	public int getPartIndex(ClothingPart part) {
+		ImmutableList<Supplier<ClothingPart>> list = parts.asList();
+		for (int i = 0; i < list.size(); i++) {
+			if (list.get(i).get() == part) return i;
+		}
+		return -1;
+	}
+	
 }
@@ -2,6 +2,10 @@ package spinyq.spinytextiles.utility.textile.clothing;
 
 public interface IClothing {
 
+	/**
+	 * @return The data of a part, or null if the part isn't in the clothing's pattern
+	 * or has no data
+	 */
 	<T> T getPartData(ClothingPart part);
 	<T> void setPartData(ClothingPart part, T data);
 	ClothingPattern getPattern();
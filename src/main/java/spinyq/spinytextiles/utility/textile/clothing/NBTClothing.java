@@ -1,52 +1,124 @@
 package spinyq.spinytextiles.utility.textile.clothing;
 
 import net.minecraft.nbt.CompoundNBT;
+import net.minecraft.nbt.ListNBT;
+import net.minecraftforge.common.util.Constants;
 import net.minecraftforge.common.util.INBTSerializable;
-import net.minecraftforge.registries.IForgeRegistry;
 import spinyq.spinytextiles.utility.NBTHelper;
 import spinyq.spinytextiles.utility.NBTHelper.ClassIdSpace;
 import spinyq.spinytextiles.utility.NBTHelper.ObjectMapper;
 import spinyq.spinytextiles.utility.registry.LazyForgeRegistry;
 import spinyq.spinytextiles.utility.textile.fabric.NBTFabric;
 
+/**
+ * Clothing info stored in a compound NBT.
+ * The pattern is stored using its registry ID, and the data of each part is stored
+ * in a list, in the same order as the pattern's parts.
+ * Older versions stored the pattern by name, and each part's data under the name of
+ * the part. Clothing in the old layout can still be read, and is converted to the new
+ * layout the first time it is written to.
+ */
 public class NBTClothing implements IClothing, INBTSerializable<CompoundNBT> {
 
+	private static final String ID_TAG = "Id", PARTS_TAG = "Parts";
+	// Used by the old layout
 	private static final String PATTERN_TAG = "Pattern", PART_DATA_TAG = "PartData";
 	private static final ClassIdSpace CLASSES = new ClassIdSpace(NBTFabric.class);
 	private static final ObjectMapper MAPPER = new ObjectMapper(CLASSES).withSupplier(NBTFabric.class, NBTFabric::new);
-	private static final IForgeRegistry<ClothingPattern> PATTERN_REGISTRY = LazyForgeRegistry.of(ClothingPattern.class);
+	private static final LazyForgeRegistry<ClothingPattern> PATTERN_REGISTRY = LazyForgeRegistry.of(ClothingPattern.class);
 
 	private CompoundNBT nbt;
 	
 	// Needed for deserialization
 	public NBTClothing() {
+		this(new CompoundNBT());
 	}
 	
 	public NBTClothing(CompoundNBT nbt) {
 		this.nbt = nbt;
 	}
 
+	private boolean isLegacy() {
+		return !nbt.contains(ID_TAG, Constants.NBT.TAG_INT) && nbt.contains(PATTERN_TAG, Constants.NBT.TAG_STRING);
+	}
+	
+	/**
+	 * Makes sure the clothing uses the current layout, converting it if necessary.
+	 * If the old pattern doesn't exist anymore, the clothing is left in the old layout.
+	 */
+	private void upgrade() {
+		if (isLegacy()) {
+			ClothingPattern pattern = NBTHelper.getRegistryEntry(nbt, PATTERN_TAG, PATTERN_REGISTRY);
+			if (pattern == null) return;
+			CompoundNBT partData = nbt.getCompound(PART_DATA_TAG);
+			// Move each part's data into the list
+			// The part data compounds themselves don't need to change
+			ListNBT parts = new ListNBT();
+			for (int i = 0; i < pattern.getPartCount(); i++) {
+				parts.add(partData.getCompound(pattern.getPart(i).getRegistryName().toString()));
+			}
+			// Swap out the old layout for the new one
+			nbt.remove(PATTERN_TAG);
+			nbt.remove(PART_DATA_TAG);
+			nbt.putInt(ID_TAG, PATTERN_REGISTRY.getID(pattern));
+			nbt.put(PARTS_TAG, parts);
+		}
+	}
+
 	@Override
 	public ClothingPattern getPattern() {
-		return NBTHelper.getRegistryEntry(nbt, PATTERN_TAG, PATTERN_REGISTRY);
+		if (isLegacy()) return NBTHelper.getRegistryEntry(nbt, PATTERN_TAG, PATTERN_REGISTRY);
+		return nbt.contains(ID_TAG, Constants.NBT.TAG_INT) ? PATTERN_REGISTRY.getValue(nbt.getInt(ID_TAG)) : null;
 	}
 
 	@Override
 	public void setPattern(ClothingPattern pattern) {
-		NBTHelper.putRegistryEntry(nbt, PATTERN_TAG, pattern);
+		upgrade();
+		ClothingPattern oldPattern = getPattern();
+		ListNBT oldParts = nbt.getList(PARTS_TAG, Constants.NBT.TAG_COMPOUND);
+		// Keep the data of any parts that the old pattern also had
+		ListNBT parts = new ListNBT();
+		for (int i = 0; i < pattern.getPartCount(); i++) {
+			int oldIndex = (oldPattern == null) ? -1 : oldPattern.getPartIndex(pattern.getPart(i));
+			parts.add((oldIndex >= 0 && oldIndex < oldParts.size()) ? oldParts.getCompound(oldIndex) : new CompoundNBT());
+		}
+		nbt.putInt(ID_TAG, PATTERN_REGISTRY.getID(pattern));
+		nbt.put(PARTS_TAG, parts);
+		// The new pattern replaces any old layout that couldn't be converted
+		nbt.remove(PATTERN_TAG);
+		nbt.remove(PART_DATA_TAG);
 	}
 
+	@Override
 	public <T> T getPartData(ClothingPart part) {
-		// Get key using resource location of clothing part
-		String key = part.getRegistryName().toString();
-		return NBTHelper.getPolymorphic(NBTHelper.getOrCreate(nbt, PART_DATA_TAG), key, MAPPER);
+		if (isLegacy()) {
+			// Get key using resource location of clothing part
+			String key = part.getRegistryName().toString();
+			return NBTHelper.getPolymorphic(nbt.getCompound(PART_DATA_TAG), key, MAPPER);
+		}
+		// Parts are stored in pattern order
+		ClothingPattern pattern = getPattern();
+		int index = (pattern == null) ? -1 : pattern.getPartIndex(part);
+		ListNBT parts = nbt.getList(PARTS_TAG, Constants.NBT.TAG_COMPOUND);
+		// Don't make up data for parts that aren't there
+		// Parts without data are stored as empty compounds, so that setPattern keeps the list in pattern order
+		if (index < 0 || index >= parts.size() || parts.getCompound(index).isEmpty()) return null;
+		return NBTHelper.readPolymorphic(parts.getCompound(index), MAPPER);
 	}
 
+	@Override
 	@SuppressWarnings("unchecked")
 	public <T> void setPartData(ClothingPart part, T data) {
-		// Get key using resource location of clothing part
-		String key = part.getRegistryName().toString();
-		NBTHelper.putPolymorphic(NBTHelper.getOrCreate(nbt, PART_DATA_TAG), key, (INBTSerializable<CompoundNBT>) data, MAPPER);
+		upgrade();
+		ClothingPattern pattern = getPattern();
+		if (pattern == null) throw new IllegalStateException("Can't set the part data of clothing without a pattern");
+		int index = pattern.getPartIndex(part);
+		if (index < 0) throw new IllegalArgumentException("Part " + part.getRegistryName() + " is not part of the clothing's pattern");
+		ListNBT parts = nbt.getList(PARTS_TAG, Constants.NBT.TAG_COMPOUND);
+		// Pad the list in case it is shorter than expected
+		while (parts.size() <= index) parts.add(new CompoundNBT());
+		parts.set(index, NBTHelper.writePolymorphic((INBTSerializable<CompoundNBT>) data, MAPPER));
+		nbt.put(PARTS_TAG, parts);
 	}
 
 	@Override
@@ -41,6 +41,16 @@ public class FabricPattern extends AbstractPattern<FabricPattern> {
 	public FabricLayer getLayer(int index) {
 		return layers.get(index).get();
 	}
+	
+	/**
+	 * Returns the index of a layer in this pattern, or -1 if the pattern doesn't have the layer.
+	 */
+	public int getLayerIndex(FabricLayer layer) {
+		for (int i = 0; i < layers.size(); i++) {
+			if (layers.get(i).get() == layer) return i;
+		}
+		return -1;
+	}
 
 	private FabricPattern(ImmutableList<Supplier<FabricLayer>> layers,
 			Optional<Supplier<FabricPattern>> monochromePattern) {
@@ -0,0 +1,158 @@
+package spinyq.spinytextiles.utility.textile.fabric;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import net.minecraft.nbt.CompoundNBT;
+import spinyq.spinytextiles.utility.color.ColorPalette;
+import spinyq.spinytextiles.utility.color.ColorWord;
+import spinyq.spinytextiles.utility.color.RYBKColor;
+import spinyq.spinytextiles.utility.registry.LazyForgeRegistry;
+
+/**
+ * An immutable copy of a fabric, decoded from NBT once and then reused.
+ * This is used when fabric info is read a lot but rarely changes, like when
+ * rendering items.
+ * Snapshots are cached using the identity of the NBT compound they were decoded
+ * from. The cache only holds weak references to the compounds, so snapshots go
+ * away along with their item stacks.
+ * Values worked out from the colors, like the rendered color and closest color word
+ * of each layer, are kept on the snapshot, so they go out of date along with it.
+ * @author SpinyQ
+ *
+ */
+public class FabricSnapshot implements IFabricView {
+
+	private static final Cache<CompoundNBT, FabricSnapshot> CACHE = CacheBuilder.newBuilder().weakKeys().build();
+	private static final LazyForgeRegistry<FabricPattern> PATTERN_REGISTRY = LazyForgeRegistry.of(FabricPattern.class);
+
+	private final FabricPattern pattern;
+	private final int patternId;
+	// Layer colors in the same order as the pattern's layers
+	private final RYBKColor[] colors;
+	private final int[] packedColors;
+	// The color of each layer as it is rendered
+	private final int[] rgbColors;
+	// The closest color word of each layer, worked out the first time they are needed
+	private volatile ColorWords colorWords;
+
+	/**
+	 * The closest color words of each layer, along with the generation of the
+	 * palette they were picked from.
+	 */
+	private static class ColorWords {
+
+		private final int generation;
+		private final ColorWord[] words;
+
+		private ColorWords(int generation, ColorWord[] words) {
+			this.generation = generation;
+			this.words = words;
+		}
+
+	}
+
+	private FabricSnapshot(IFabricView fabric) {
+		this.pattern = fabric.getPattern();
+		this.patternId = PATTERN_REGISTRY.getID(pattern);
+		int layers = pattern.getMaxLayerIndex();
+		this.colors = new RYBKColor[layers];
+		this.packedColors = new int[layers];
+		this.rgbColors = new int[layers];
+		for (int i = 0; i < layers; i++) {
+			RYBKColor color = fabric.getLayerColor(i);
+			colors[i] = color;
+			packedColors[i] = color.toInt();
+			rgbColors[i] = color.toRGBInt(null);
+		}
+	}
+
+	/**
+	 * Retrieves the snapshot of the fabric stored in an NBT compound, decoding it if
+	 * it isn't already cached.
+	 * @return The snapshot, or null if the compound doesn't hold a valid fabric
+	 */
+	public static FabricSnapshot of(CompoundNBT nbt) {
+		FabricSnapshot snapshot = CACHE.getIfPresent(nbt);
+		if (snapshot == null) {
+			NBTFabric fabric = new NBTFabric(nbt);
+			// Don't bother with fabric that doesn't have a pattern
+			if (fabric.getPattern() == null) return null;
+			snapshot = new FabricSnapshot(fabric);
+			CACHE.put(nbt, snapshot);
+		}
+		return snapshot;
+	}
+
+	/**
+	 * Throws away the cached snapshot of an NBT compound.
+	 * Must be called whenever fabric info is written to the compound.
+	 */
+	public static void invalidate(CompoundNBT nbt) {
+		CACHE.invalidate(nbt);
+	}
+
+	@Override
+	public FabricPattern getPattern() {
+		return pattern;
+	}
+
+	/**
+	 * Returns the numeric registry ID of the pattern, for looking things up by pattern
+	 * without hashing.
+	 */
+	public int getPatternId() {
+		return patternId;
+	}
+
+	@Override
+	public RYBKColor getLayerColor(FabricLayer layer) {
+		for (int i = 0; i < colors.length; i++) {
+			if (pattern.getLayer(i) == layer) return colors[i].copy();
+		}
+		return null;
+	}
+
+	@Override
+	public RYBKColor getLayerColor(int index) {
+		return colors[index].copy();
+	}
+
+	/**
+	 * Returns the color of a layer in the format returned by RYBKColor.toInt, i.e. 0xRRYYBBKK.
+	 * Doesn't allocate anything, so it is safe to call every frame.
+	 */
+	public int getPackedLayerColor(int index) {
+		return packedColors[index];
+	}
+
+	/**
+	 * Returns the color of a layer as it is rendered, i.e. 0xRRGGBB.
+	 */
+	public int getRGBLayerColor(int index) {
+		return rgbColors[index];
+	}
+
+	/**
+	 * Returns the color word closest to the color of a layer.
+	 * The words are picked again whenever a new palette is loaded.
+	 */
+	public ColorWord getClosestColorWord(int index) {
+		ColorPalette palette = ColorPalette.getCurrent();
+		ColorWords words = colorWords;
+		if (words == null || words.generation != palette.getGeneration()) {
+			ColorWord[] closest = new ColorWord[colors.length];
+			for (int i = 0; i < closest.length; i++) {
+				closest[i] = palette.getClosest(colors[i]);
+			}
+			words = new ColorWords(palette.getGeneration(), closest);
+			colorWords = words;
+		}
+		return words.words[index];
+	}
+
+	public int getLayerCount() {
+		return packedColors.length;
+	}
+
+}
@@ -1,24 +1,16 @@
 package spinyq.spinytextiles.utility.textile.fabric;
 
-import java.util.Iterator;
 import java.util.Optional;
 
-import org.apache.logging.log4j.LogManager;
-import org.apache.logging.log4j.Logger;
-
 import spinyq.spinytextiles.utility.color.RYBKColor;
 
-public interface IFabric {
-
-	static final Logger LOGGER = LogManager.getLogger();
+public interface IFabric extends IFabricView {
 
 	void setPattern(FabricPattern pattern);
-	FabricPattern getPattern();
 	void setLayerColor(FabricLayer layer, RYBKColor color);
-	RYBKColor getLayerColor(FabricLayer layer);
 	
 	// Makes this fabric equal to another.
-	default void set(IFabric other) {
+	default void set(IFabricView other) {
 		FabricPattern pattern = other.getPattern();
 		setPattern(pattern);
 		pattern.getLayerStream().forEach((layer) -> {
@@ -30,10 +22,6 @@ public interface IFabric {
 		setLayerColor(getPattern().getLayer(index), color);
 	}
 	
-	default RYBKColor getLayerColor(int index) {
-		return getLayerColor(getPattern().getLayer(index));
-	}
-	
 	/**
 	 * Sets all layers of this fabric to the given color.
 	 * 
@@ -65,26 +53,4 @@ public interface IFabric {
 		}
 	}
 	
-	/**
-	 * Returns an optional color that is only present if the fabric is monochrome.
-	 * That is, if all the layers are the same color, this method returns that
-	 * color.
-	 */
-	default Optional<RYBKColor> getMonochrome() {
-		Iterator<RYBKColor> colorIterator = getPattern().getLayerStream().map(this::getLayerColor).iterator();
-		// Get the first color
-		RYBKColor toMatch = colorIterator.next();
-		LOGGER.trace("Color to match: {}", toMatch);
-		// If any other color doesn't match the first color, fail
-		// Otherwise return the color
-		while (colorIterator.hasNext()) {
-			RYBKColor next = colorIterator.next();
-			boolean match = toMatch.equalsRGB(next);
-			LOGGER.trace("Comparing: {} Match: {}", next, match);
-			if (!match)
-				return Optional.empty();
-		}
-		return Optional.of(toMatch);
-	}
-	
 }
@@ -0,0 +1,50 @@
+package spinyq.spinytextiles.utility.textile.fabric;
+
+import java.util.Iterator;
+import java.util.Optional;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import spinyq.spinytextiles.utility.color.RYBKColor;
+
+/**
+ * Read-only access to fabric info.
+ * Implemented by every fabric, and by FabricSnapshot, which can't be modified.
+ * @author SpinyQ
+ *
+ */
+public interface IFabricView {
+
+	static final Logger LOGGER = LogManager.getLogger();
+
+	FabricPattern getPattern();
+	RYBKColor getLayerColor(FabricLayer layer);
+	
+	default RYBKColor getLayerColor(int index) {
+		return getLayerColor(getPattern().getLayer(index));
+	}
+	
+	/**
+	 * Returns an optional color that is only present if the fabric is monochrome.
+	 * That is, if all the layers are the same color, this method returns that
+	 * color.
+	 */
+	default Optional<RYBKColor> getMonochrome() {
+		Iterator<RYBKColor> colorIterator = getPattern().getLayerStream().map(this::getLayerColor).iterator();
+		// Get the first color
+		RYBKColor toMatch = colorIterator.next();
+		LOGGER.trace("Color to match: {}", toMatch);
+		// If any other color doesn't match the first color, fail
+		// Otherwise return the color
+		while (colorIterator.hasNext()) {
+			RYBKColor next = colorIterator.next();
+			boolean match = toMatch.equalsRGB(next);
+			LOGGER.trace("Comparing: {} Match: {}", next, match);
+			if (!match)
+				return Optional.empty();
+		}
+		return Optional.of(toMatch);
+	}
+	
+}
@@ -1,16 +1,28 @@
 package spinyq.spinytextiles.utility.textile.fabric;
 
+import java.util.Arrays;
+
 import net.minecraft.nbt.CompoundNBT;
+import net.minecraftforge.common.util.Constants;
 import net.minecraftforge.common.util.INBTSerializable;
-import net.minecraftforge.registries.IForgeRegistry;
 import spinyq.spinytextiles.utility.NBTHelper;
 import spinyq.spinytextiles.utility.color.RYBKColor;
 import spinyq.spinytextiles.utility.registry.LazyForgeRegistry;
 
+/**
+ * Fabric info stored in a compound NBT.
+ * Everything is stored in a single int array: the pattern's registry ID, followed
+ * by the color of each layer in pattern order, packed using RYBKColor.toInt.
+ * Older versions stored the pattern by name, and each color under the name of its
+ * layer. Fabric in the old layout can still be read, and is converted to the new
+ * layout the first time it is written to.
+ */
 public class NBTFabric implements IFabric, INBTSerializable<CompoundNBT> {
 
+	private static final String DATA_TAG = "Data";
+	// Used by the old layout
 	private static final String PATTERN_TAG = "Pattern", COLORS_TAG = "Colors";
-	private static final IForgeRegistry<FabricPattern> PATTERN_REGISTRY = LazyForgeRegistry.of(FabricPattern.class);
+	private static final LazyForgeRegistry<FabricPattern> PATTERN_REGISTRY = LazyForgeRegistry.of(FabricPattern.class);
 
 	// Internal NBT compound
 	CompoundNBT nbt;
@@ -21,32 +33,116 @@ public class NBTFabric implements IFabric, INBTSerializable<CompoundNBT> {
 
 	// Needed for deserialization
 	public NBTFabric() {
+		this(new CompoundNBT());
 	}
 
-	@Override
-	public void setLayerColor(FabricLayer layer, RYBKColor color) {
+	private boolean isLegacy() {
+		return !nbt.contains(DATA_TAG, Constants.NBT.TAG_INT_ARRAY) && nbt.contains(PATTERN_TAG, Constants.NBT.TAG_STRING);
+	}
+
+	// Returns an empty array if there is no data
+	// The returned array must not be modified, since it belongs to the NBT
+	private int[] getData() {
+		return nbt.getIntArray(DATA_TAG);
+	}
+
+	private RYBKColor getLegacyLayerColor(FabricLayer layer) {
 		// Construct the key using the layer resource location
 		String key = layer.getRegistryName().toString();
-		NBTHelper.put(NBTHelper.getOrCreate(nbt, COLORS_TAG), key, color);
+		CompoundNBT colors = nbt.getCompound(COLORS_TAG);
+		return colors.contains(key) ? NBTHelper.get(colors, key, RYBKColor::new) : new RYBKColor();
+	}
+
+	/**
+	 * Makes sure the fabric uses the current layout, converting it if necessary.
+	 * If the old pattern doesn't exist anymore, the fabric is left in the old layout,
+	 * so nothing is lost if the pattern comes back.
+	 * @return The data array, which is empty if the fabric couldn't be converted
+	 */
+	private int[] upgrade() {
+		if (isLegacy()) {
+			FabricPattern pattern = NBTHelper.getRegistryEntry(nbt, PATTERN_TAG, PATTERN_REGISTRY);
+			if (pattern == null) return getData();
+			int[] data = new int[pattern.getMaxLayerIndex() + 1];
+			data[0] = PATTERN_REGISTRY.getID(pattern);
+			for (int i = 0; i < pattern.getMaxLayerIndex(); i++) {
+				data[i + 1] = getLegacyLayerColor(pattern.getLayer(i)).toInt();
+			}
+			// Swap out the old layout for the new one
+			nbt.remove(PATTERN_TAG);
+			nbt.remove(COLORS_TAG);
+			nbt.putIntArray(DATA_TAG, data);
+		}
+		return getData();
+	}
+
+	@Override
+	public void setLayerColor(FabricLayer layer, RYBKColor color) {
+		int index = getPattern().getLayerIndex(layer);
+		if (index < 0) throw new IllegalArgumentException("Layer " + layer.getRegistryName() + " is not part of the fabric's pattern");
+		setLayerColor(index, color);
+	}
+
+	@Override
+	public void setLayerColor(int index, RYBKColor color) {
+		int[] oldData = upgrade();
+		FabricPattern pattern = getPattern();
+		if (pattern == null) throw new IllegalStateException("Can't set the layer colors of fabric without a pattern");
+		if (index < 0 || index >= pattern.getMaxLayerIndex()) throw new IndexOutOfBoundsException("Layer index: " + index);
+		// Copy the data, since we can't modify the array owned by the NBT
+		// The data might be shorter than the pattern, if the pattern gained layers, so grow it if needed
+		int[] data = Arrays.copyOf(oldData, Math.max(oldData.length, pattern.getMaxLayerIndex() + 1));
+		data[index + 1] = color.toInt();
+		nbt.putIntArray(DATA_TAG, data);
+		// Any snapshot of this fabric is now out of date
+		FabricSnapshot.invalidate(nbt);
 	}
 
 	@Override
 	public RYBKColor getLayerColor(FabricLayer layer) {
-		// Construct the key using the layer resource location
-		String key = layer.getRegistryName().toString();
-		return NBTHelper.get(NBTHelper.getOrCreate(nbt, COLORS_TAG), key, RYBKColor::new);
+		if (isLegacy()) return getLegacyLayerColor(layer);
+		FabricPattern pattern = getPattern();
+		return getLayerColor((pattern == null) ? -1 : pattern.getLayerIndex(layer));
+	}
+
+	@Override
+	public RYBKColor getLayerColor(int index) {
+		if (isLegacy()) {
+			FabricPattern pattern = getPattern();
+			return (pattern == null) ? new RYBKColor() : getLegacyLayerColor(pattern.getLayer(index));
+		}
+		// Layers without a color are white
+		int[] data = getData();
+		return (index >= 0 && index + 1 < data.length) ? new RYBKColor().fromInt(data[index + 1]) : new RYBKColor();
 	}
 
 	@Override
 	public void setPattern(FabricPattern pattern) {
+		int[] oldData = upgrade();
+		FabricPattern oldPattern = getPattern();
 		// Write pattern
-		NBTHelper.putRegistryEntry(nbt, PATTERN_TAG, pattern);
+		// Keep the colors of any layers that the old pattern also had
+		int[] data = new int[pattern.getMaxLayerIndex() + 1];
+		data[0] = PATTERN_REGISTRY.getID(pattern);
+		if (oldPattern != null) {
+			for (int i = 0; i < pattern.getMaxLayerIndex(); i++) {
+				int oldIndex = oldPattern.getLayerIndex(pattern.getLayer(i));
+				if (oldIndex >= 0 && oldIndex + 1 < oldData.length) data[i + 1] = oldData[oldIndex + 1];
+			}
+		}
+		nbt.putIntArray(DATA_TAG, data);
+		// The new pattern replaces any old layout that couldn't be converted
+		nbt.remove(PATTERN_TAG);
+		nbt.remove(COLORS_TAG);
+		FabricSnapshot.invalidate(nbt);
 	}
 
 	@Override
 	public FabricPattern getPattern() {
-		// Look up pattern using registry
-		return NBTHelper.getRegistryEntry(nbt, PATTERN_TAG, PATTERN_REGISTRY);
+		if (isLegacy()) return NBTHelper.getRegistryEntry(nbt, PATTERN_TAG, PATTERN_REGISTRY);
+		// Look up pattern using registry ID
+		int[] data = getData();
+		return (data.length > 0) ? PATTERN_REGISTRY.getValue(data[0]) : null;
 	}
 
 	@Override
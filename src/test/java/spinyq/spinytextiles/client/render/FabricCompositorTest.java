@@ -0,0 +1,141 @@
+package spinyq.spinytextiles.client.render;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import spinyq.spinytextiles.client.render.FabricCompositor.Image;
+
+/**
+ * Composites small hand-made fabrics and checks the result pixel by pixel.
+ * Pixels are written as 0xAABBGGRR, like NativeImage stores them.
+ * @author SpinyQ
+ *
+ */
+public class FabricCompositorTest {
+
+	private static final int CLEAR = 0x00000000, WHITE = 0xFFFFFFFF, RED = 0xFF0000FF, BLUE = 0xFFFF0000;
+	// Colors passed to the compositor are 0xRRGGBB
+	private static final int NO_TINT = 0xFFFFFF;
+
+	private static Image fill(int width, int height, int pixel) {
+		int[] pixels = new int[width * height];
+		Arrays.fill(pixels, pixel);
+		return new Image(width, height, pixels);
+	}
+
+	private static Image image(int width, int height, int... pixels) {
+		return new Image(width, height, pixels);
+	}
+
+	private static Image composite(Image template, Image detail, Image layer, int color) {
+		return FabricCompositor.composite(template, detail, new Image[] { layer }, new int[] { color });
+	}
+
+	// Compares as hex, so failures are readable
+	private static void assertPixel(int expected, Image image, int x, int y) {
+		assertEquals(Integer.toHexString(expected), Integer.toHexString(image.getPixel(x, y)));
+	}
+
+	@Test
+	public void templateMasksLayer() {
+		// Only the left half of the template is visible
+		Image template = image(2, 1, WHITE, CLEAR);
+		Image result = composite(template, fill(2, 1, CLEAR), fill(2, 1, RED), NO_TINT);
+		assertPixel(RED, result, 0, 0);
+		assertPixel(CLEAR, result, 1, 0);
+	}
+
+	@Test
+	public void layerMasksDetail() {
+		// The detail is drawn wherever the layer is, even outside of the template,
+		// but never where the layer isn't
+		Image template = fill(3, 1, CLEAR);
+		Image layer = image(3, 1, RED, CLEAR, RED);
+		Image detail = image(3, 1, BLUE, BLUE, CLEAR);
+		Image result = composite(template, detail, layer, NO_TINT);
+		assertPixel(BLUE, result, 0, 0);
+		assertPixel(CLEAR, result, 1, 0);
+		assertPixel(CLEAR, result, 2, 0);
+	}
+
+	@Test
+	public void nearlyClearPixelsAreMasked() {
+		// Alpha at or below the threshold counts as clear, like in SpriteMask
+		Image template = image(2, 1, 0x19FFFFFF, 0x1AFFFFFF);
+		Image result = composite(template, fill(2, 1, CLEAR), fill(2, 1, RED), NO_TINT);
+		assertPixel(CLEAR, result, 0, 0);
+		assertPixel(RED, result, 1, 0);
+	}
+
+	@Test
+	public void layersAreTinted() {
+		// Each channel is multiplied by the color, and alpha is kept
+		Image result = composite(fill(1, 1, WHITE), fill(1, 1, CLEAR), fill(1, 1, 0xC0FFFFFF), 0x804020);
+		assertPixel(0xC0204080, result, 0, 0);
+		// A gray texture is darkened further
+		result = composite(fill(1, 1, WHITE), fill(1, 1, CLEAR), fill(1, 1, 0xFF808080), 0x804020);
+		assertPixel(0xFF102040, result, 0, 0);
+	}
+
+	@Test
+	public void detailIsTintedWithItsLayer() {
+		Image result = composite(fill(1, 1, WHITE), fill(1, 1, WHITE), fill(1, 1, RED), 0x00FF00);
+		assertPixel(0xFF00FF00, result, 0, 0);
+	}
+
+	@Test
+	public void upperLayersBlendOverLowerLayers() {
+		Image template = fill(2, 1, WHITE), detail = fill(2, 1, CLEAR);
+		// The upper layer is half transparent on the left, and opaque on the right
+		Image lower = fill(2, 1, RED), upper = image(2, 1, 0x80FF0000, BLUE);
+		Image result = FabricCompositor.composite(template, detail, new Image[] { lower, upper },
+				new int[] { NO_TINT, NO_TINT });
+		assertPixel(0xFF80007F, result, 0, 0);
+		assertPixel(BLUE, result, 1, 0);
+	}
+
+	@Test
+	public void blendingOverNothingKeepsAlpha() {
+		Image result = composite(fill(1, 1, WHITE), fill(1, 1, CLEAR), fill(1, 1, 0x80FF0000), NO_TINT);
+		assertPixel(0x80FF0000, result, 0, 0);
+	}
+
+	@Test
+	public void smallerImagesAreSampledByNearestPixel() {
+		// A 2x2 layer and a 1x1 detail stretched over a 4x4 template
+		Image layer = image(2, 2, 0xFF000001, 0xFF000002, 0xFF000003, 0xFF000004);
+		Image result = composite(fill(4, 4, WHITE), fill(1, 1, CLEAR), layer, NO_TINT);
+		assertEquals(4, result.getWidth());
+		assertEquals(4, result.getHeight());
+		for (int y = 0; y < 4; y++) {
+			for (int x = 0; x < 4; x++) {
+				assertPixel(layer.getPixel(x / 2, y / 2), result, x, y);
+			}
+		}
+	}
+
+	@Test
+	public void largerImagesAreSampledByNearestPixel() {
+		// A 4x4 layer squeezed into a 2x2 template keeps every other pixel
+		int[] pixels = new int[16];
+		for (int i = 0; i < pixels.length; i++) {
+			pixels[i] = 0xFF000000 | i;
+		}
+		Image layer = image(4, 4, pixels);
+		Image result = composite(fill(2, 2, WHITE), fill(2, 2, CLEAR), layer, NO_TINT);
+		for (int y = 0; y < 2; y++) {
+			for (int x = 0; x < 2; x++) {
+				assertPixel(layer.getPixel(x * 2, y * 2), result, x, y);
+			}
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void everyLayerNeedsAColor() {
+		FabricCompositor.composite(fill(1, 1, WHITE), fill(1, 1, CLEAR), new Image[] { fill(1, 1, RED) }, new int[0]);
+	}
+
+}
@@ -0,0 +1,63 @@
+package spinyq.spinytextiles.client.render;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.SortedMap;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import it.unimi.dsi.fastutil.objects.Object2ObjectLinkedOpenHashMap;
+import net.minecraft.client.renderer.BufferBuilder;
+import net.minecraft.client.renderer.IRenderTypeBuffer;
+import net.minecraft.client.renderer.RenderType;
+
+/**
+ * Renders a frame's worth of mod tiles into a buffer source, without a game or
+ * a GL context, and counts how many buffers they end up in.
+ * @author SpinyQ
+ *
+ */
+public class ModRenderTypesTest {
+
+	private static final int TILES = 100;
+
+	private BufferBuilder shared;
+	private IRenderTypeBuffer.Impl bufferSource;
+
+	@Before
+	public void setup() {
+		// The same kind of map the game uses for its fixed buffers
+		SortedMap<RenderType, BufferBuilder> fixedBuffers = new Object2ObjectLinkedOpenHashMap<>();
+		ModRenderTypes.registerBuffers(fixedBuffers);
+		shared = new BufferBuilder(256);
+		bufferSource = IRenderTypeBuffer.getImpl(fixedBuffers, shared);
+	}
+
+	@Test
+	public void renderTypesAreShared() {
+		assertSame(CuboidRenderType.resizableCuboid(), CuboidRenderType.resizableCuboid());
+		assertSame(FabricAtlas.renderType(), FabricAtlas.renderType());
+	}
+
+	@Test
+	public void oneBufferPerRenderType() {
+		Set<Object> buffers = Collections.newSetFromMap(new IdentityHashMap<>());
+		// Spinning wheels and fabric items take turns, like they would in a real frame
+		for (int i = 0; i < TILES; i++) {
+			buffers.add(bufferSource.getBuffer(CuboidRenderType.resizableCuboid()));
+			buffers.add(bufferSource.getBuffer(FabricAtlas.renderType()));
+		}
+		assertEquals(2, buffers.size());
+		// Switching types never touched the shared buffer, so it never had to be flushed
+		for (Object buffer : buffers) {
+			assertNotSame(shared, buffer);
+		}
+	}
+
+}